@@ -0,0 +1,68 @@
+package aed.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aed.tables.ForgettingCuckooHashTable;
+import aed.tables.ISymbolTable;
+
+//deletion of every key of a table that holds ForgettingCuckooHashTable.getTableSize(primeIndex) keys, including the
+//resizes down that the tables do as they empty; divide the score by that number for the time of a single deletion
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class DeleteBenchmark
+{
+    @Param({"CUCKOO", "OPEN_ADDRESSING", "HASH_MAP"})
+    private Implementation implementation;
+
+    //indexes of primesTable0: 331, 5471, 87719 and 1403641 keys
+    @Param({"5", "9", "13", "17"})
+    private int primeIndex;
+
+    private Integer[] keys;
+    private ISymbolTable<Integer,Integer> full;
+
+    @Setup(Level.Trial)
+    public void createKeys()
+    {
+        this.keys = Keys.present(ForgettingCuckooHashTable.getTableSize(this.primeIndex));
+    }
+
+    //deleteAll empties the table, so it gets a new full one before every call. For the smallest sizes the call
+    //is short enough for the setup to disturb it, so these scores are best compared between implementations
+    @Setup(Level.Invocation)
+    public void fill()
+    {
+        this.full = this.implementation.createPresized(this.primeIndex);
+        for(Integer k : this.keys)
+        {
+            this.full.put(k, k);
+        }
+    }
+
+    @Benchmark
+    public ISymbolTable<Integer,Integer> deleteAll()
+    {
+        for(Integer k : this.keys)
+        {
+            this.full.delete(k);
+        }
+        return this.full;
+    }
+}
@@ -0,0 +1,68 @@
+package aed.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aed.tables.ForgettingCuckooHashTable;
+import aed.tables.ISymbolTable;
+
+//insertion of ForgettingCuckooHashTable.getTableSize(primeIndex) keys in an empty table per call; divide the score
+//by that number for the time of a single insertion. putInsertGrowing starts from the smallest table and so includes
+//every resize, while putInsertPresized never resizes: the difference between the two is the cost of resizing
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class GrowthBenchmark
+{
+    @Param({"CUCKOO", "OPEN_ADDRESSING", "HASH_MAP"})
+    private Implementation implementation;
+
+    //indexes of primesTable0: 331, 5471, 87719 and 1403641 keys
+    @Param({"5", "9", "13", "17"})
+    private int primeIndex;
+
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void createKeys()
+    {
+        this.keys = Keys.present(ForgettingCuckooHashTable.getTableSize(this.primeIndex));
+    }
+
+    @Benchmark
+    public ISymbolTable<Integer,Integer> putInsertGrowing()
+    {
+        ISymbolTable<Integer,Integer> table = this.implementation.create();
+        for(Integer k : this.keys)
+        {
+            table.put(k, k);
+        }
+        return table;
+    }
+
+    @Benchmark
+    public ISymbolTable<Integer,Integer> putInsertPresized()
+    {
+        ISymbolTable<Integer,Integer> table = this.implementation.createPresized(this.primeIndex);
+        for(Integer k : this.keys)
+        {
+            table.put(k, k);
+        }
+        return table;
+    }
+}
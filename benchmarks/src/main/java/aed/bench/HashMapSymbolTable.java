@@ -0,0 +1,57 @@
+package aed.bench;
+
+import java.util.HashMap;
+
+import aed.tables.ISymbolTable;
+
+//java.util.HashMap seen as an ISymbolTable, so that it is measured by exactly the same benchmark code as our tables
+public class HashMapSymbolTable<Key,Value> implements ISymbolTable<Key,Value>
+{
+    private final HashMap<Key,Value> map;
+
+    public HashMapSymbolTable()
+    {
+        this.map = new HashMap<Key,Value>();
+    }
+
+    //a map with room for the given number of keys, without resizing
+    public HashMapSymbolTable(int expectedSize)
+    {
+        this.map = HashMap.newHashMap(expectedSize);
+    }
+
+    public void put(Key k, Value v)
+    {
+        this.map.put(k, v);
+    }
+
+    public Value get(Key k)
+    {
+        return this.map.get(k);
+    }
+
+    public void delete(Key k)
+    {
+        this.map.remove(k);
+    }
+
+    public boolean containsKey(Key k)
+    {
+        return this.map.containsKey(k);
+    }
+
+    public boolean isEmpty()
+    {
+        return this.map.isEmpty();
+    }
+
+    public int size()
+    {
+        return this.map.size();
+    }
+
+    public Iterable<Key> keys()
+    {
+        return this.map.keySet();
+    }
+}
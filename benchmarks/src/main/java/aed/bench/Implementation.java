@@ -0,0 +1,52 @@
+package aed.bench;
+
+import aed.tables.ForgettingCuckooHashTable;
+import aed.tables.ISymbolTable;
+import aed.tables.OpenAdressingHashTable;
+
+//the symbol tables compared by the benchmarks; the names are the values of the "implementation" parameter
+public enum Implementation
+{
+    CUCKOO
+    {
+        ISymbolTable<Integer,Integer> create()
+        {
+            return new ForgettingCuckooHashTable<Integer,Integer>();
+        }
+
+        ISymbolTable<Integer,Integer> createPresized(int primeIndex)
+        {
+            return new ForgettingCuckooHashTable<Integer,Integer>(primeIndex);
+        }
+    },
+    OPEN_ADDRESSING
+    {
+        ISymbolTable<Integer,Integer> create()
+        {
+            return new OpenAdressingHashTable<Integer,Integer>();
+        }
+
+        ISymbolTable<Integer,Integer> createPresized(int primeIndex)
+        {
+            return OpenAdressingHashTable.withExpectedSize(ForgettingCuckooHashTable.getTableSize(primeIndex));
+        }
+    },
+    HASH_MAP
+    {
+        ISymbolTable<Integer,Integer> create()
+        {
+            return new HashMapSymbolTable<Integer,Integer>();
+        }
+
+        ISymbolTable<Integer,Integer> createPresized(int primeIndex)
+        {
+            return new HashMapSymbolTable<Integer,Integer>(ForgettingCuckooHashTable.getTableSize(primeIndex));
+        }
+    };
+
+    //an empty table with the smallest size of the implementation, that grows as keys are inserted
+    abstract ISymbolTable<Integer,Integer> create();
+
+    //an empty table that holds ForgettingCuckooHashTable.getTableSize(primeIndex) keys without resizing
+    abstract ISymbolTable<Integer,Integer> createPresized(int primeIndex);
+}
@@ -0,0 +1,35 @@
+package aed.bench;
+
+//distinct keys that are spread over the whole int range, so that no table benefits from sequential keys.
+//Multiplying by an odd constant is a bijection of the ints, so key(i) != key(j) whenever i != j
+final class Keys
+{
+    private Keys() {}
+
+    static Integer key(int i)
+    {
+        return i * 0x9E3779B9;
+    }
+
+    //the keys 0 to n - 1, boxed once so that the benchmarks do not measure boxing
+    static Integer[] present(int n)
+    {
+        return range(0, n);
+    }
+
+    //n keys that are never among present(m) for any m <= Integer.MAX_VALUE / 2
+    static Integer[] missing(int n)
+    {
+        return range(Integer.MAX_VALUE / 2, n);
+    }
+
+    private static Integer[] range(int first, int n)
+    {
+        Integer[] keys = new Integer[n];
+        for(int i = 0; i < n; i++)
+        {
+            keys[i] = key(first + i);
+        }
+        return keys;
+    }
+}
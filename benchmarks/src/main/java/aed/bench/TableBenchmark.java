@@ -0,0 +1,95 @@
+package aed.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aed.tables.ForgettingCuckooHashTable;
+import aed.tables.ISymbolTable;
+
+//operations on a table that already holds ForgettingCuckooHashTable.getTableSize(primeIndex) keys.
+//The table is created with that size, so every implementation is measured at the highest load it allows
+//before resizing. Each call uses the next key of the array, so successive calls do not hit the same slot
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class TableBenchmark
+{
+    @Param({"CUCKOO", "OPEN_ADDRESSING", "HASH_MAP"})
+    private Implementation implementation;
+
+    //indexes of primesTable0: 331, 5471, 87719 and 1403641 keys
+    @Param({"5", "9", "13", "17"})
+    private int primeIndex;
+
+    private ISymbolTable<Integer,Integer> table;
+    private Integer[] present;
+    private Integer[] missing;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void fill()
+    {
+        int n = ForgettingCuckooHashTable.getTableSize(this.primeIndex);
+        this.present = Keys.present(n);
+        this.missing = Keys.missing(n);
+        this.table = this.implementation.createPresized(this.primeIndex);
+        for(Integer k : this.present)
+        {
+            this.table.put(k, k);
+        }
+        this.next = 0;
+    }
+
+    private int nextIndex()
+    {
+        int i = this.next;
+        this.next = (i + 1 == this.present.length) ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public Integer getHit()
+    {
+        return this.table.get(this.present[nextIndex()]);
+    }
+
+    @Benchmark
+    public Integer getMiss()
+    {
+        return this.table.get(this.missing[nextIndex()]);
+    }
+
+    //put of a key that is already in the table, which only replaces its value
+    @Benchmark
+    public void putUpdate()
+    {
+        Integer k = this.present[nextIndex()];
+        this.table.put(k, k);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Blackhole blackhole)
+    {
+        for(Integer k : this.table.keys())
+        {
+            blackhole.consume(k);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package aed.bench.workload;
+
+import java.util.SplittableRandom;
+
+class HotspotKeys implements KeyDistribution
+{
+    private final double hotSetFraction;
+    private final double hotOperationFraction;
+
+    HotspotKeys(double hotSetFraction, double hotOperationFraction)
+    {
+        if(hotSetFraction <= 0 || hotSetFraction > 1) throw new IllegalArgumentException();
+        if(hotOperationFraction < 0 || hotOperationFraction > 1) throw new IllegalArgumentException();
+        this.hotSetFraction = hotSetFraction;
+        this.hotOperationFraction = hotOperationFraction;
+    }
+
+    public long next(SplittableRandom random, long keyCount)
+    {
+        long hotKeys = Math.max(1, (long) (keyCount * this.hotSetFraction));
+        if(hotKeys >= keyCount || random.nextDouble() < this.hotOperationFraction)
+            return random.nextLong(hotKeys);
+        return hotKeys + random.nextLong(keyCount - hotKeys);
+    }
+}
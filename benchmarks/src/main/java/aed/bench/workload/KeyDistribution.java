@@ -0,0 +1,44 @@
+package aed.bench.workload;
+
+import java.util.SplittableRandom;
+
+//chooses which of the keys inserted so far an operation uses. Keys are numbered in insertion order, from 0 to
+//keyCount - 1, and keyCount only grows, so an implementation may keep state that depends on it.
+//The same random numbers and key counts must always produce the same keys, so that workloads are reproducible
+public interface KeyDistribution
+{
+    //returns the number of a key, from 0 to keyCount - 1
+    long next(SplittableRandom random, long keyCount);
+
+    //every key is equally likely
+    static KeyDistribution uniform()
+    {
+        return new UniformKeys();
+    }
+
+    //a few keys get most of the operations, with the popular keys spread over the whole key space, as in YCSB.
+    //The constant 0.99 is the one YCSB uses
+    static KeyDistribution zipfian()
+    {
+        return new ZipfianKeys(ZipfianKeys.YCSB_THETA, true);
+    }
+
+    //zipfian with the given constant, from 0 (uniform) to below 1 (more skewed)
+    static KeyDistribution zipfian(double theta)
+    {
+        return new ZipfianKeys(theta, true);
+    }
+
+    //the most recently inserted keys are the most popular, with zipfian popularity by age
+    static KeyDistribution latest()
+    {
+        return new LatestKeys();
+    }
+
+    //hotOperationFraction of the operations go to the first hotSetFraction of the keys, uniformly;
+    //the remaining operations go to the other keys, also uniformly
+    static KeyDistribution hotspot(double hotSetFraction, double hotOperationFraction)
+    {
+        return new HotspotKeys(hotSetFraction, hotOperationFraction);
+    }
+}
@@ -0,0 +1,58 @@
+package aed.bench.workload;
+
+import java.util.Arrays;
+
+//every latency of one kind of operation, in nanoseconds. Keeping them all (8 bytes each) makes the percentiles exact
+class LatencyRecorder
+{
+    private long[] latencies;
+    private int count;
+    private boolean sorted;
+
+    LatencyRecorder()
+    {
+        this.latencies = new long[1024];
+        this.count = 0;
+        this.sorted = true;
+    }
+
+    void record(long nanos)
+    {
+        if(this.count == this.latencies.length)
+            this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+        this.latencies[this.count++] = nanos;
+        this.sorted = false;
+    }
+
+    int count()
+    {
+        return this.count;
+    }
+
+    //the smallest latency that is greater than or equal to the given fraction (0 to 1) of the latencies
+    long percentile(double p)
+    {
+        if(p < 0 || p > 1) throw new IllegalArgumentException();
+        if(this.count == 0)
+            return 0;
+        if(!this.sorted)
+        {
+            Arrays.sort(this.latencies, 0, this.count);
+            this.sorted = true;
+        }
+        int rank = Math.max(1, (int) Math.ceil(p * this.count));
+        return this.latencies[rank - 1];
+    }
+
+    double mean()
+    {
+        if(this.count == 0)
+            return 0;
+        double sum = 0;
+        for(int i = 0; i < this.count; i++)
+        {
+            sum += this.latencies[i];
+        }
+        return sum / this.count;
+    }
+}
@@ -0,0 +1,19 @@
+package aed.bench.workload;
+
+import java.util.SplittableRandom;
+
+//zipfian by age: the newest key has rank 0
+class LatestKeys implements KeyDistribution
+{
+    private final ZipfianKeys ranks;
+
+    LatestKeys()
+    {
+        this.ranks = new ZipfianKeys(ZipfianKeys.YCSB_THETA, false);
+    }
+
+    public long next(SplittableRandom random, long keyCount)
+    {
+        return keyCount - 1 - this.ranks.nextRank(random, keyCount);
+    }
+}
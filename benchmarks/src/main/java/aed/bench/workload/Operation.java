@@ -0,0 +1,14 @@
+package aed.bench.workload;
+
+//the kinds of operation in a workload, each applied to one key
+public enum Operation
+{
+    //get of an existing key, that may miss if the key was deleted or forgotten
+    READ,
+    //put of a new value for an existing key
+    UPDATE,
+    //put of a key that was never used before
+    INSERT,
+    //delete of an existing key
+    DELETE
+}
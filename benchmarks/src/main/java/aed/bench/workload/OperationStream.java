@@ -0,0 +1,57 @@
+package aed.bench.workload;
+
+import java.util.SplittableRandom;
+
+//the operations of a workload, one at a time. After next(), keyNumber() and key() give the key of that operation
+public class OperationStream
+{
+    private final Workload workload;
+    private final KeyDistribution keyDistribution;
+    private final SplittableRandom random;
+    private long remaining;
+    private long keyCount;
+    private long keyNumber;
+
+    OperationStream(Workload workload)
+    {
+        this.workload = workload;
+        this.keyDistribution = workload.getKeyDistribution();
+        this.random = new SplittableRandom(workload.getSeed());
+        this.remaining = workload.getOperationCount();
+        this.keyCount = workload.getRecordCount();
+        this.keyNumber = -1;
+    }
+
+    public boolean hasNext()
+    {
+        return this.remaining > 0;
+    }
+
+    public Operation next()
+    {
+        if(this.remaining == 0) throw new IllegalStateException();
+        this.remaining--;
+        Operation operation = this.workload.operationFor(this.random.nextDouble());
+        if(operation == Operation.INSERT)
+            this.keyNumber = this.keyCount++;
+        else
+            this.keyNumber = this.keyDistribution.next(this.random, this.keyCount);
+        return operation;
+    }
+
+    public long keyNumber()
+    {
+        return this.keyNumber;
+    }
+
+    public Long key()
+    {
+        return Workload.key(this.keyNumber);
+    }
+
+    //the number of keys inserted so far, counting the initial records
+    public long keyCount()
+    {
+        return this.keyCount;
+    }
+}
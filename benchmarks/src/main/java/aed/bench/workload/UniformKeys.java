@@ -0,0 +1,11 @@
+package aed.bench.workload;
+
+import java.util.SplittableRandom;
+
+class UniformKeys implements KeyDistribution
+{
+    public long next(SplittableRandom random, long keyCount)
+    {
+        return random.nextLong(keyCount);
+    }
+}
@@ -0,0 +1,151 @@
+package aed.bench.workload;
+
+//describes a stream of operations in the style of YCSB: recordCount keys are inserted before the stream starts,
+//and then each of the operationCount operations is a read, update, insert or delete with the given proportions,
+//on a key chosen by the key distribution. Every operation also moves a simulated clock forward by
+//millisPerOperation, so that the forgetting tables can forget the keys that are not used.
+//Two streams of the same workload are always identical, since they only depend on the seed
+public class Workload
+{
+    private final long recordCount;
+    private final long operationCount;
+    private final long seed;
+    private double readProportion;
+    private double updateProportion;
+    private double insertProportion;
+    private double deleteProportion;
+    private KeyDistribution keyDistribution;
+    private long millisPerOperation;
+
+    //by default every operation is a read of a zipfian key, and the clock does not move
+    public Workload(long recordCount, long operationCount, long seed)
+    {
+        if(recordCount <= 0 || operationCount < 0) throw new IllegalArgumentException();
+        this.recordCount = recordCount;
+        this.operationCount = operationCount;
+        this.seed = seed;
+        this.readProportion = 1.0;
+        this.updateProportion = 0.0;
+        this.insertProportion = 0.0;
+        this.deleteProportion = 0.0;
+        this.keyDistribution = KeyDistribution.zipfian();
+        this.millisPerOperation = 0;
+    }
+
+    //YCSB workload A, update heavy: 50% reads and 50% updates of zipfian keys
+    public static Workload ycsbA(long recordCount, long operationCount, long seed)
+    {
+        Workload workload = new Workload(recordCount, operationCount, seed);
+        workload.setMix(0.5, 0.5, 0.0, 0.0);
+        return workload;
+    }
+
+    //YCSB workload B, read mostly: 95% reads and 5% updates of zipfian keys
+    public static Workload ycsbB(long recordCount, long operationCount, long seed)
+    {
+        Workload workload = new Workload(recordCount, operationCount, seed);
+        workload.setMix(0.95, 0.05, 0.0, 0.0);
+        return workload;
+    }
+
+    //YCSB workload C, read only, of zipfian keys
+    public static Workload ycsbC(long recordCount, long operationCount, long seed)
+    {
+        return new Workload(recordCount, operationCount, seed);
+    }
+
+    //YCSB workload D, read latest: 95% reads of mostly recent keys and 5% inserts
+    public static Workload ycsbD(long recordCount, long operationCount, long seed)
+    {
+        Workload workload = new Workload(recordCount, operationCount, seed);
+        workload.setMix(0.95, 0.0, 0.05, 0.0);
+        workload.setKeyDistribution(KeyDistribution.latest());
+        return workload;
+    }
+
+    //the proportions do not need to add up to 1, only their ratios matter
+    public void setMix(double read, double update, double insert, double delete)
+    {
+        if(read < 0 || update < 0 || insert < 0 || delete < 0) throw new IllegalArgumentException();
+        if(read + update + insert + delete <= 0) throw new IllegalArgumentException();
+        this.readProportion = read;
+        this.updateProportion = update;
+        this.insertProportion = insert;
+        this.deleteProportion = delete;
+    }
+
+    public void setKeyDistribution(KeyDistribution keyDistribution)
+    {
+        if(keyDistribution == null) throw new IllegalArgumentException();
+        this.keyDistribution = keyDistribution;
+    }
+
+    public void setMillisPerOperation(long millisPerOperation)
+    {
+        if(millisPerOperation < 0) throw new IllegalArgumentException();
+        this.millisPerOperation = millisPerOperation;
+    }
+
+    public long getRecordCount()
+    {
+        return this.recordCount;
+    }
+
+    public long getOperationCount()
+    {
+        return this.operationCount;
+    }
+
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    public long getMillisPerOperation()
+    {
+        return this.millisPerOperation;
+    }
+
+    KeyDistribution getKeyDistribution()
+    {
+        return this.keyDistribution;
+    }
+
+    //the operation for a random number from 0 (inclusive) to 1 (exclusive)
+    Operation operationFor(double r)
+    {
+        double x = r * (this.readProportion + this.updateProportion + this.insertProportion + this.deleteProportion);
+        if(x < this.readProportion)
+            return Operation.READ;
+        x -= this.readProportion;
+        if(x < this.updateProportion)
+            return Operation.UPDATE;
+        x -= this.updateProportion;
+        if(x < this.insertProportion || this.deleteProportion == 0)
+            return Operation.INSERT;
+        return Operation.DELETE;
+    }
+
+    public OperationStream operations()
+    {
+        return new OperationStream(this);
+    }
+
+    //the key with the given number. The numbers are mixed, so that consecutive keys do not have consecutive
+    //hash codes; the mix is a bijection, so different numbers always give different keys
+    public static Long key(long keyNumber)
+    {
+        return mix(keyNumber);
+    }
+
+    //the finalizer of MurmurHash3
+    static long mix(long x)
+    {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
@@ -0,0 +1,53 @@
+package aed.bench.workload;
+
+import aed.bench.HashMapSymbolTable;
+import aed.tables.ForgettingCuckooHashTable;
+import aed.tables.ManualTimeSource;
+import aed.tables.OpenAdressingHashTable;
+
+//runs the YCSB workloads A to D and a hotspot workload with deletes on each table, and prints the results.
+//Every operation takes one simulated millisecond, and the forgetting table forgets the keys that were not used
+//for as many milliseconds as there are initial records.
+//Usage: java --enable-preview -cp benchmarks.jar aed.bench.workload.WorkloadMain [records] [operations] [seed]
+public class WorkloadMain
+{
+    public static void main(String[] args)
+    {
+        long recordCount = (args.length > 0) ? Long.parseLong(args[0]) : 100000;
+        long operationCount = (args.length > 1) ? Long.parseLong(args[1]) : 1000000;
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42;
+
+        Workload hotspot = new Workload(recordCount, operationCount, seed);
+        hotspot.setMix(0.8, 0.1, 0.05, 0.05);
+        hotspot.setKeyDistribution(KeyDistribution.hotspot(0.2, 0.8));
+
+        Workload[] workloads = {
+                Workload.ycsbA(recordCount, operationCount, seed),
+                Workload.ycsbB(recordCount, operationCount, seed),
+                Workload.ycsbC(recordCount, operationCount, seed),
+                Workload.ycsbD(recordCount, operationCount, seed),
+                hotspot
+        };
+        String[] names = {"A", "B", "C", "D", "hotspot"};
+
+        for(int i = 0; i < workloads.length; i++)
+        {
+            Workload workload = workloads[i];
+            workload.setMillisPerOperation(1);
+            System.out.println("Workload " + names[i]);
+
+            System.out.print(WorkloadRunner.run("ForgettingCuckooHashTable", workload,
+                    new ForgettingCuckooHashTable<Long,Long>()));
+
+            ManualTimeSource time = new ManualTimeSource();
+            System.out.print(WorkloadRunner.run("ForgettingCuckooHashTable, forgetting", workload,
+                    new ForgettingCuckooHashTable<Long,Long>(0, time, recordCount), time::advance));
+
+            System.out.print(WorkloadRunner.run("OpenAdressingHashTable", workload,
+                    new OpenAdressingHashTable<Long,Long>()));
+
+            System.out.print(WorkloadRunner.run("HashMap", workload, new HashMapSymbolTable<Long,Long>()));
+            System.out.println();
+        }
+    }
+}
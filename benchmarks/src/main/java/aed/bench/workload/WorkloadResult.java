@@ -0,0 +1,114 @@
+package aed.bench.workload;
+
+import java.util.EnumMap;
+import java.util.Locale;
+
+//what a table did with a workload: throughput, latency percentiles of each kind of operation and how many reads
+//did not find their key, which for a forgetting table are mostly keys it chose to forget
+public class WorkloadResult
+{
+    private final String name;
+    private final EnumMap<Operation,LatencyRecorder> latencies;
+    private final long loadNanos;
+    private final long elapsedNanos;
+    private final long missedReads;
+    private final int finalSize;
+
+    WorkloadResult(String name, EnumMap<Operation,LatencyRecorder> latencies, long loadNanos, long elapsedNanos,
+                   long missedReads, int finalSize)
+    {
+        this.name = name;
+        this.latencies = latencies;
+        this.loadNanos = loadNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.missedReads = missedReads;
+        this.finalSize = finalSize;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    public long getOperations()
+    {
+        long operations = 0;
+        for(LatencyRecorder recorder : this.latencies.values())
+        {
+            operations += recorder.count();
+        }
+        return operations;
+    }
+
+    public long getOperations(Operation operation)
+    {
+        return this.latencies.get(operation).count();
+    }
+
+    //time taken to insert the initial records
+    public long getLoadNanos()
+    {
+        return this.loadNanos;
+    }
+
+    //time taken by the operations, including the time to generate and to measure each one
+    public long getElapsedNanos()
+    {
+        return this.elapsedNanos;
+    }
+
+    //operations per second
+    public double getThroughput()
+    {
+        if(this.elapsedNanos == 0)
+            return 0;
+        return getOperations() * 1E9 / this.elapsedNanos;
+    }
+
+    //latency in nanoseconds of the given fraction (0 to 1) of the operations of this kind, for instance 0.99
+    public long getLatencyPercentile(Operation operation, double p)
+    {
+        return this.latencies.get(operation).percentile(p);
+    }
+
+    public double getMeanLatency(Operation operation)
+    {
+        return this.latencies.get(operation).mean();
+    }
+
+    public long getMissedReads()
+    {
+        return this.missedReads;
+    }
+
+    //fraction of the reads that did not find their key
+    public double getMissRatio()
+    {
+        long reads = getOperations(Operation.READ);
+        return (reads == 0) ? 0 : (double) this.missedReads / reads;
+    }
+
+    //number of keys in the table at the end
+    public int getFinalSize()
+    {
+        return this.finalSize;
+    }
+
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%s: %d operations, %.0f ops/s, load %.1f ms, %d keys at the end, "
+                + "%.2f%% of reads missed%n", this.name, getOperations(), getThroughput(), this.loadNanos / 1E6,
+                this.finalSize, 100 * getMissRatio()));
+        for(Operation operation : Operation.values())
+        {
+            LatencyRecorder recorder = this.latencies.get(operation);
+            if(recorder.count() == 0)
+                continue;
+            sb.append(String.format(Locale.ROOT, "  %-6s %9d ops  mean %7.0f ns  p50 %6d  p95 %6d  p99 %7d  p99.9 %8d  max %9d ns%n",
+                    operation, recorder.count(), recorder.mean(), recorder.percentile(0.5), recorder.percentile(0.95),
+                    recorder.percentile(0.99), recorder.percentile(0.999), recorder.percentile(1.0)));
+        }
+        return sb.toString();
+    }
+}
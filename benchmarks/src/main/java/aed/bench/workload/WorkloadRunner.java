@@ -0,0 +1,70 @@
+package aed.bench.workload;
+
+import java.util.EnumMap;
+import java.util.function.LongConsumer;
+
+import aed.tables.ISymbolTable;
+
+//applies a workload to a symbol table. The initial records are inserted first, without moving the clock; then
+//each operation is timed on its own with System.nanoTime, and the clock is moved after it, outside the timing.
+//The values stored are the key numbers. The latencies include the few tens of nanoseconds that nanoTime costs,
+//so they are meant to compare tables and workloads, not as absolute costs (the JMH benchmarks are for that)
+public class WorkloadRunner
+{
+    private WorkloadRunner() {}
+
+    public static WorkloadResult run(String name, Workload workload, ISymbolTable<Long,Long> table)
+    {
+        return run(name, workload, table, null);
+    }
+
+    //clock receives the milliseconds that each operation takes in simulated time, for instance
+    //ManualTimeSource::advance for a table created with a ManualTimeSource; it may be null
+    public static WorkloadResult run(String name, Workload workload, ISymbolTable<Long,Long> table, LongConsumer clock)
+    {
+        long start = System.nanoTime();
+        for(long i = 0; i < workload.getRecordCount(); i++)
+        {
+            table.put(Workload.key(i), i);
+        }
+        long loadNanos = System.nanoTime() - start;
+
+        EnumMap<Operation,LatencyRecorder> latencies = new EnumMap<Operation,LatencyRecorder>(Operation.class);
+        for(Operation operation : Operation.values())
+        {
+            latencies.put(operation, new LatencyRecorder());
+        }
+        long missedReads = 0;
+        long millisPerOperation = workload.getMillisPerOperation();
+        OperationStream operations = workload.operations();
+
+        start = System.nanoTime();
+        while(operations.hasNext())
+        {
+            Operation operation = operations.next();
+            Long k = operations.key();
+            Long v = operations.keyNumber();
+            long before = System.nanoTime();
+            switch(operation)
+            {
+                case READ:
+                    if(table.get(k) == null)
+                        missedReads++;
+                    break;
+                case UPDATE:
+                case INSERT:
+                    table.put(k, v);
+                    break;
+                case DELETE:
+                    table.delete(k);
+                    break;
+            }
+            latencies.get(operation).record(System.nanoTime() - before);
+            if(clock != null && millisPerOperation > 0)
+                clock.accept(millisPerOperation);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        return new WorkloadResult(name, latencies, loadNanos, elapsedNanos, missedReads, table.size());
+    }
+}
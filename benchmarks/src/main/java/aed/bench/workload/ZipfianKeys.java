@@ -0,0 +1,70 @@
+package aed.bench.workload;
+
+import java.util.SplittableRandom;
+
+//zipfian ranks with the algorithm of Gray et al., "Quickly Generating Billion-Record Synthetic Databases", as in YCSB.
+//Rank 0 is the most popular. The normalisation constant zeta(n) is a sum over every key, so it is kept and only
+//extended with the new keys when the key count grows. When scrambled, ranks are hashed to key numbers, so that
+//the popular keys are not all next to each other
+class ZipfianKeys implements KeyDistribution
+{
+    static final double YCSB_THETA = 0.99;
+
+    private final double theta;
+    private final boolean scrambled;
+    private final double alpha;
+    private final double zeta2;
+    private long items;
+    private double zetaN;
+    private double eta;
+
+    ZipfianKeys(double theta, boolean scrambled)
+    {
+        if(theta < 0 || theta >= 1) throw new IllegalArgumentException();
+        this.theta = theta;
+        this.scrambled = scrambled;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zeta2 = 1.0 + Math.pow(0.5, theta);
+        this.items = 0;
+        this.zetaN = 0;
+        this.eta = 0;
+    }
+
+    public long next(SplittableRandom random, long keyCount)
+    {
+        long rank = nextRank(random, keyCount);
+        if(!this.scrambled)
+            return rank;
+        return Long.remainderUnsigned(Workload.mix(rank), keyCount);
+    }
+
+    long nextRank(SplittableRandom random, long keyCount)
+    {
+        if(keyCount <= 0) throw new IllegalArgumentException();
+        if(keyCount != this.items)
+            resize(keyCount);
+        double u = random.nextDouble();
+        double uz = u * this.zetaN;
+        if(uz < 1.0)
+            return 0;
+        if(uz < 1.0 + Math.pow(0.5, this.theta))
+            return 1;
+        long rank = (long) (keyCount * Math.pow(this.eta * u - this.eta + 1, this.alpha));
+        return Math.min(rank, keyCount - 1);
+    }
+
+    private void resize(long keyCount)
+    {
+        if(keyCount < this.items)
+        {
+            this.items = 0;
+            this.zetaN = 0;
+        }
+        for(long i = this.items + 1; i <= keyCount; i++)
+        {
+            this.zetaN += 1.0 / Math.pow(i, this.theta);
+        }
+        this.items = keyCount;
+        this.eta = (1 - Math.pow(2.0 / keyCount, 1 - this.theta)) / (1 - this.zeta2 / this.zetaN);
+    }
+}
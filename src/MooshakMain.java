@@ -1,4 +1,9 @@
+import aed.tables.tests.ClockCuckooHashTableTests;
+import aed.tables.tests.ConcurrentCuckooHashTableTests;
 import aed.tables.tests.CuckooHashTableTests;
+import aed.tables.tests.DAryCuckooHashTableTests;
+import aed.tables.tests.OffHeapCuckooHashTableTests;
+import aed.tables.tests.PrimitiveCuckooHashTableTests;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -15,6 +20,15 @@ public class MooshakMain {
         //problem A - Unit tests for problem A
         unitTests.put("A", CuckooHashTableTests.getAllTests());
         //problem B - Unit tests for problem B
+        unitTests.put("B", PrimitiveCuckooHashTableTests.getAllTests());
+        //problem C - Unit tests for problem C
+        unitTests.put("C", OffHeapCuckooHashTableTests.getAllTests());
+        //problem D - Unit tests for problem D
+        unitTests.put("D", ConcurrentCuckooHashTableTests.getAllTests());
+        //problem E - Unit tests for problem E
+        unitTests.put("E", ClockCuckooHashTableTests.getAllTests());
+        //problem F - Unit tests for problem F
+        unitTests.put("F", DAryCuckooHashTableTests.getAllTests());
 
 
         InputStreamReader inputReader = new InputStreamReader(System.in);
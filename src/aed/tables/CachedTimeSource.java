@@ -0,0 +1,54 @@
+package aed.tables;
+
+//relógio de baixa resolução: uma única thread daemon lê o relógio do sistema a cada resolutionMillis e publica-o
+//num campo volatile, por isso ler o tempo é apenas uma leitura volatile. A mesma instância pode ser partilhada por
+//várias tabelas. O tempo devolvido pode estar atrasado até resolutionMillis
+public class CachedTimeSource implements TimeSource, AutoCloseable {
+
+    private volatile long now;
+    private volatile boolean running;
+    private final Thread ticker;
+
+    public CachedTimeSource(long resolutionMillis)
+    {
+        if(resolutionMillis <= 0) throw new IllegalArgumentException();
+
+        this.now = System.currentTimeMillis();
+        this.running = true;
+        this.ticker = new Thread(() -> {
+            while(this.running)
+            {
+                try
+                {
+                    Thread.sleep(resolutionMillis);
+                }
+                catch(InterruptedException e)
+                {
+                    return;
+                }
+                this.now = System.currentTimeMillis();
+            }
+        }, "cached-time-source");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    public CachedTimeSource()
+    {
+        this(10);
+    }
+
+    @Override
+    public long currentTimeMillis()
+    {
+        return this.now;
+    }
+
+    //para a thread que atualiza o tempo; a partir daqui o tempo deixa de mudar
+    @Override
+    public void close()
+    {
+        this.running = false;
+        this.ticker.interrupt();
+    }
+}
@@ -0,0 +1,412 @@
+package aed.tables;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//versão da ForgettingCuckooHashTable em que o esquecimento usa uma política do tipo CLOCK em vez de timestamps:
+//cada posição tem apenas uma idade de 1 byte (em vez de um long), que volta a 0 quando a chave é usada.
+//Um ponteiro (o "hand" do CLOCK) percorre as duas tabelas AGE_LIMIT vezes por cada janela de esquecimento e
+//aumenta a idade de cada chave por onde passa; uma chave cuja idade passou AGE_LIMIT não é usada há pelo menos
+//forgettingWindowMillis (e no máximo mais 1/AGE_LIMIT da janela), e pode ser esquecida numa colisão.
+//O ponteiro avança no início de cada operação, só quando já passou tempo suficiente para mover pelo menos uma posição,
+//e no máximo MAX_SWEEP_STEPS posições por operação: o resto fica em atraso para as operações seguintes. Uma chave usada
+//enquanto o ponteiro está em atraso começa com uma idade negativa, uma unidade por cada passagem em atraso pela sua
+//posição, porque essas passagens correspondem a tempo anterior ao uso. Fora isso, um get só escreve na posição
+//encontrada, e apenas se a idade dessa chave mudar.
+//Cada chave só pode estar na sua posição de T0 ou na sua posição de T1, pelo que um get lê no máximo duas posições.
+public class ClockForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Value> {
+
+    private static final int AGE_LIMIT = 7;
+    private static final byte MAX_AGE = AGE_LIMIT + 1;
+    private static final int MAX_SWEEP_STEPS = 256;
+    private static final long DEFAULT_FORGETTING_WINDOW = 24 * 3600000L;
+
+    private int mT0;
+    private int mT1;
+    private int primeIndex;
+    private int sizeT0;
+    private int sizeT1;
+    private Key[] keysT0;
+    private Value[] valuesT0;
+    private Key[] keysT1;
+    private Value[] valuesT1;
+    private byte[] agesT0;
+    private byte[] agesT1;
+    private final TimeSource timeSource;
+    private final long forgettingWindowMillis;
+    private long currentTimeMillis;
+    //tempo acumulado com advanceTime, somado ao tempo da TimeSource
+    private long timeOffsetMillis;
+    private boolean advanceTimeStatus;
+    private boolean isResizing;
+    //posição do ponteiro do CLOCK (T0 seguida de T1) e instante até ao qual as passagens já foram contadas,
+    //com a fração de posição que sobrou da última contagem
+    private int hand;
+    private long lastSweepMillis;
+    private double sweepFraction;
+    //posições que o ponteiro ainda tem de percorrer
+    private long pendingSteps;
+    //posições percorridas desde a última vez que uma idade foi posta abaixo do máximo (sem contar as que estavam
+    //em atraso nesse momento); a partir de MAX_AGE voltas todas as idades estão no máximo, e o ponteiro pára
+    private long quietSteps;
+
+    @SuppressWarnings("unchecked")
+    public ClockForgettingCuckooHashTable(int primeIndex, TimeSource timeSource, long forgettingWindowMillis)
+    {
+        if(forgettingWindowMillis < AGE_LIMIT) throw new IllegalArgumentException();
+
+        this.primeIndex = primeIndex;
+        this.mT0 = CuckooPrimes.primesTable0[primeIndex];
+        this.mT1 = CuckooPrimes.primesTable1[primeIndex];
+        this.sizeT0 = 0;
+        this.sizeT1 = 0;
+        this.keysT0 = (Key[]) new Object[this.mT0];
+        this.valuesT0 = (Value[]) new Object[this.mT0];
+        this.keysT1 = (Key[]) new Object[this.mT1];
+        this.valuesT1 = (Value[]) new Object[this.mT1];
+        this.agesT0 = new byte[this.mT0];
+        this.agesT1 = new byte[this.mT1];
+        this.timeSource = timeSource;
+        this.forgettingWindowMillis = forgettingWindowMillis;
+        this.currentTimeMillis = (timeSource != null) ? timeSource.currentTimeMillis() : System.currentTimeMillis();
+        this.timeOffsetMillis = 0;
+        this.advanceTimeStatus = timeSource != null;
+        this.isResizing = false;
+        this.hand = 0;
+        this.lastSweepMillis = this.currentTimeMillis;
+        this.sweepFraction = 0;
+        this.pendingSteps = 0;
+        this.quietSteps = 0;
+    }
+
+    public ClockForgettingCuckooHashTable(int primeIndex)
+    {
+        this(primeIndex, null, DEFAULT_FORGETTING_WINDOW);
+    }
+
+    public ClockForgettingCuckooHashTable()
+    {
+        this(0);
+    }
+
+    private int h0(Key k) {
+        return ((k.hashCode() & 0x7fffffff)) % this.mT0;
+    }
+
+    private int h1(Key k) {
+        int hash = k.hashCode() & 0x7fffffff;
+        int prime1 = 31;
+        int prime2 = 37;
+        //calculado em long para não haver overflow nas tabelas maiores
+        return (int) (((long) (hash % this.mT1) * prime1 + (long) (hash % this.mT1) * prime2) % this.mT1);
+    }
+
+    public int size()
+    {
+        return this.sizeT0 + this.sizeT1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity()
+    {
+        return this.mT0 + this.mT1;
+    }
+
+    public float getLoadFactor()
+    {
+        return (float) size()/getCapacity();
+    }
+
+    public long getForgettingWindowMillis()
+    {
+        return this.forgettingWindowMillis;
+    }
+
+    public boolean containsKey(Key k) {
+        return k.equals(this.keysT0[h0(k)]) || k.equals(this.keysT1[h1(k)]);
+    }
+
+    public Value get(Key k)
+    {
+        advanceClock();
+
+        int i = h0(k);
+        if(k.equals(this.keysT0[i]))
+        {
+            //só escreve se for preciso, para que a leitura de uma chave usada recentemente não escreva nada
+            byte age = freshAge(i);
+            if(this.agesT0[i] != age)
+                this.agesT0[i] = age;
+            return this.valuesT0[i];
+        }
+        i = h1(k);
+        if(k.equals(this.keysT1[i]))
+        {
+            byte age = freshAge(this.mT0 + i);
+            if(this.agesT1[i] != age)
+                this.agesT1[i] = age;
+            return this.valuesT1[i];
+        }
+        return null;
+    }
+
+    //idade de uma chave usada agora, na posição dada do ponteiro (T0 seguida de T1): 0, menos uma unidade por cada
+    //passagem em atraso do ponteiro por essa posição. Como a idade desce abaixo do máximo, o ponteiro volta a andar
+    private byte freshAge(int position)
+    {
+        this.quietSteps = -this.pendingSteps;
+        if(this.pendingSteps == 0)
+            return 0;
+        int total = this.mT0 + this.mT1;
+        int distance = position - this.hand;
+        if(distance < 0)
+            distance += total;
+        if(distance >= this.pendingSteps)
+            return 0;
+        return (byte) -((this.pendingSteps - distance - 1) / total + 1);
+    }
+
+    private void advanceClock()
+    {
+        advanceClock(MAX_SWEEP_STEPS);
+    }
+
+    //lê o relógio, junta às posições em atraso as correspondentes ao tempo que passou, e avança o ponteiro do CLOCK
+    //no máximo maxSteps posições. Depois de MAX_AGE voltas completas todas as idades estão no máximo, por isso
+    //o atraso nunca passa de MAX_AGE voltas
+    private void advanceClock(long maxSteps)
+    {
+        if(this.timeSource != null)
+            this.currentTimeMillis = this.timeSource.currentTimeMillis() + this.timeOffsetMillis;
+
+        int total = this.mT0 + this.mT1;
+        long maxPending = (long) total * MAX_AGE;
+        long elapsed = this.currentTimeMillis - this.lastSweepMillis;
+        if(elapsed > 0)
+        {
+            //em double, porque elapsed * total pode não caber num long com janelas muito grandes
+            double exact = (double) elapsed * total / (this.forgettingWindowMillis / AGE_LIMIT) + this.sweepFraction;
+            long steps = (exact >= maxPending) ? maxPending : (long) exact;
+            this.sweepFraction = (exact >= maxPending) ? 0 : exact - steps;
+            this.lastSweepMillis = this.currentTimeMillis;
+            this.pendingSteps = Math.min(this.pendingSteps + steps, maxPending);
+        }
+        if(this.quietSteps >= maxPending)
+        {
+            this.pendingSteps = 0;
+            return;
+        }
+
+        long steps = Math.min(this.pendingSteps, maxSteps);
+        this.pendingSteps -= steps;
+        this.quietSteps += steps;
+        for(long s = 0; s < steps; s++)
+        {
+            if(this.hand < this.mT0)
+            {
+                if(this.keysT0[this.hand] != null && this.agesT0[this.hand] < MAX_AGE)
+                    this.agesT0[this.hand]++;
+            }
+            else
+            {
+                int i = this.hand - this.mT0;
+                if(this.keysT1[i] != null && this.agesT1[i] < MAX_AGE)
+                    this.agesT1[i]++;
+            }
+            this.hand = (this.hand + 1 == total) ? 0 : this.hand + 1;
+        }
+    }
+
+    private boolean canForget(byte age)
+    {
+        return age > AGE_LIMIT && this.advanceTimeStatus && !this.isResizing;
+    }
+
+    private void resize(int primeIndex)
+    {
+        if(primeIndex < 0 || primeIndex >= CuckooPrimes.primesTable0.length || primeIndex >= CuckooPrimes.primesTable1.length) return;
+
+        this.primeIndex = primeIndex;
+        this.isResizing = true;
+
+        ClockForgettingCuckooHashTable<Key,Value> aux =
+                new ClockForgettingCuckooHashTable<Key,Value>(this.primeIndex, null, this.forgettingWindowMillis);
+        aux.currentTimeMillis = this.currentTimeMillis;
+        aux.lastSweepMillis = this.currentTimeMillis;
+        aux.isResizing = true;
+
+        //a idade acompanha cada chave para a sua nova posição
+        for(int i = 0; i < this.mT0; i++)
+        {
+            if(this.keysT0[i] != null) aux.insert(this.keysT0[i], this.valuesT0[i], this.agesT0[i]);
+        }
+        for(int i = 0; i < this.mT1; i++)
+        {
+            if(this.keysT1[i] != null) aux.insert(this.keysT1[i], this.valuesT1[i], this.agesT1[i]);
+        }
+
+        this.isResizing = false;
+        this.primeIndex = aux.primeIndex;
+        this.keysT0 = aux.keysT0;
+        this.keysT1 = aux.keysT1;
+        this.valuesT0 = aux.valuesT0;
+        this.valuesT1 = aux.valuesT1;
+        this.agesT0 = aux.agesT0;
+        this.agesT1 = aux.agesT1;
+        this.sizeT0 = aux.sizeT0;
+        this.sizeT1 = aux.sizeT1;
+        this.mT0 = aux.mT0;
+        this.mT1 = aux.mT1;
+        //o ponteiro recomeça no início, mas continua a partir do instante da última passagem, com o mesmo atraso
+        this.hand = 0;
+        this.quietSteps = -this.pendingSteps;
+    }
+
+    public void put(Key k, Value v)
+    {
+        if(k == null) throw new IllegalArgumentException();
+
+        if(v == null)
+        {
+            delete(k);
+            return;
+        }
+
+        advanceClock();
+
+        int i = h0(k);
+        if(k.equals(this.keysT0[i]))
+        {
+            this.valuesT0[i] = v;
+            this.agesT0[i] = freshAge(i);
+            return;
+        }
+        i = h1(k);
+        if(k.equals(this.keysT1[i]))
+        {
+            this.valuesT1[i] = v;
+            this.agesT1[i] = freshAge(this.mT0 + i);
+            return;
+        }
+
+        if(getLoadFactor() >= 0.5f)
+            resize(this.primeIndex+1);
+
+        //a chave nova fica sempre na sua posição de T0; as chaves que ela desloca levam a sua idade
+        insert(k, v, freshAge(h0(k)));
+    }
+
+    //insere uma chave que ainda não está na tabela, com a idade indicada; a idade acompanha a chave nas trocas
+    private void insert(Key k, Value v, byte age)
+    {
+        int currentTable = 0;
+        int swaps = 0;
+        int maxSwaps = 1000;
+
+        while(swaps < maxSwaps) {
+            Key[] keys = (currentTable == 0) ? this.keysT0 : this.keysT1;
+            Value[] values = (currentTable == 0) ? this.valuesT0 : this.valuesT1;
+            byte[] ages = (currentTable == 0) ? this.agesT0 : this.agesT1;
+            int index = (currentTable == 0) ? h0(k) : h1(k);
+
+            if(keys[index] == null)
+            {
+                keys[index] = k;
+                values[index] = v;
+                ages[index] = age;
+                if(currentTable == 0)
+                    this.sizeT0++;
+                else
+                    this.sizeT1++;
+                return;
+            }
+            if(checkSameHashCode(k))
+                throw new IllegalArgumentException();
+            if(canForget(ages[index]))
+            {
+                //a chave antiga é esquecida e substituída pela nova
+                keys[index] = k;
+                values[index] = v;
+                ages[index] = age;
+                return;
+            }
+
+            Key tempKey = keys[index];
+            Value tempValue = values[index];
+            byte tempAge = ages[index];
+            keys[index] = k;
+            values[index] = v;
+            ages[index] = age;
+            k = tempKey;
+            v = tempValue;
+            age = tempAge;
+            currentTable = (currentTable == 0) ? 1 : 0;
+            swaps++;
+        }
+
+        resize(this.primeIndex + 1);
+        insert(k, v, age);
+    }
+
+    private boolean checkSameHashCode(Key currentKey) {
+        Key keyT0 = this.keysT0[h0(currentKey)];
+        Key keyT1 = this.keysT1[h1(currentKey)];
+
+        if (keyT0 != null && keyT1 != null) {
+            int hashCode = currentKey.hashCode();
+            return hashCode == keyT0.hashCode() && hashCode == keyT1.hashCode();
+        }
+
+        return false;
+    }
+
+    public void delete(Key k)
+    {
+        advanceClock();
+
+        int i = h0(k);
+        if(k.equals(this.keysT0[i]))
+        {
+            this.keysT0[i] = null;
+            this.valuesT0[i] = null;
+            this.sizeT0--;
+        }
+        else
+        {
+            i = h1(k);
+            if(!k.equals(this.keysT1[i])) return;
+            this.keysT1[i] = null;
+            this.valuesT1[i] = null;
+            this.sizeT1--;
+        }
+
+        if(getLoadFactor() < 0.125f && (getCapacity() > CuckooPrimes.primesTable0[0] && getCapacity() > CuckooPrimes.primesTable1[0]))
+            resize(this.primeIndex-1);
+    }
+
+    public Iterable<Key> keys() {
+        List<Key> allKeys = new ArrayList<>();
+        for(int i = 0; i < this.mT0; i++)
+        {
+            if(this.keysT0[i] != null) allKeys.add(this.keysT0[i]);
+        }
+        for(int i = 0; i < this.mT1; i++)
+        {
+            if(this.keysT1[i] != null) allKeys.add(this.keysT1[i]);
+        }
+        return allKeys;
+    }
+
+    public void advanceTime(int hours) {
+        this.currentTimeMillis += (hours * 3600000L);
+        this.timeOffsetMillis += (hours * 3600000L);
+        this.advanceTimeStatus = true;
+        //as idades são atualizadas logo, e sem limite de posições, para que as chaves usadas depois deste avanço
+        //não sejam envelhecidas por ele
+        advanceClock(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,659 @@
+package aed.tables;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+//versão concorrente da ForgettingCuckooHashTable, com locks por faixas (stripes) de posições.
+//Cada chave só pode estar na posição h0(k) de T0 ou na posição h1(k) de T1, e qualquer operação sobre uma chave
+//adquire apenas os dois stripes dessas posições, sempre por ordem crescente do índice do stripe (o que evita deadlocks).
+//A inserção de uma chave quando as duas posições estão ocupadas procura primeiro, sem locks, um caminho de trocas
+//até uma posição livre, e depois executa o caminho do fim para o início; cada troca só adquire os stripes
+//das duas posições envolvidas, e valida que o caminho ainda é válido antes de mover a chave.
+//O resize adquire todos os stripes por ordem, e troca as tabelas de uma só vez.
+//Com leituras otimistas (setOptimisticReads), get e containsKey não adquirem locks: cada stripe tem um contador
+//de versão (seqlock) que os escritores tornam ímpar antes de alterar posições do stripe e par depois de acabar;
+//o leitor lê as duas posições da chave e só aceita o resultado se as versões dos dois stripes não mudaram.
+//Como uma troca ao longo de um caminho move a chave entre as suas duas posições com os dois stripes marcados,
+//o leitor nunca deixa de encontrar uma chave que está a ser trocada.
+public class ConcurrentForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Value> {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+    private static final long DEFAULT_FORGETTING_WINDOW = 24 * 3600000L;
+    private static final int MAX_PATH_LENGTH = 256;
+    //caminho de trocas de cada thread, reutilizado em todas as inserções (só é usado durante uma chamada a put)
+    private static final ThreadLocal<int[]> PATH_BUFFER = ThreadLocal.withInitial(() -> new int[MAX_PATH_LENGTH + 1]);
+
+    //as duas tabelas de uma determinada capacidade; o resize substitui o objeto inteiro
+    private static class Tables<Key,Value>
+    {
+        final int primeIndex;
+        final int mT0;
+        final int mT1;
+        final Key[] keysT0;
+        final Value[] valuesT0;
+        final long[] timestampsT0;
+        final Key[] keysT1;
+        final Value[] valuesT1;
+        final long[] timestampsT1;
+
+        @SuppressWarnings("unchecked")
+        Tables(int primeIndex)
+        {
+            this.primeIndex = primeIndex;
+            this.mT0 = CuckooPrimes.primesTable0[primeIndex];
+            this.mT1 = CuckooPrimes.primesTable1[primeIndex];
+            this.keysT0 = (Key[]) new Object[this.mT0];
+            this.valuesT0 = (Value[]) new Object[this.mT0];
+            this.timestampsT0 = new long[this.mT0];
+            this.keysT1 = (Key[]) new Object[this.mT1];
+            this.valuesT1 = (Value[]) new Object[this.mT1];
+            this.timestampsT1 = new long[this.mT1];
+        }
+
+        int h0(Key k) {
+            return ((k.hashCode() & 0x7fffffff)) % this.mT0;
+        }
+
+        int h1(Key k) {
+            int hash = k.hashCode() & 0x7fffffff;
+            int prime1 = 31;
+            int prime2 = 37;
+            return (int) (((long) (hash % this.mT1) * prime1 + (long) (hash % this.mT1) * prime2) % this.mT1);
+        }
+
+        Key[] keys(int table)
+        {
+            return (table == 0) ? this.keysT0 : this.keysT1;
+        }
+
+        Value[] values(int table)
+        {
+            return (table == 0) ? this.valuesT0 : this.valuesT1;
+        }
+
+        long[] timestamps(int table)
+        {
+            return (table == 0) ? this.timestampsT0 : this.timestampsT1;
+        }
+
+        //posição alternativa de uma chave que está na tabela indicada
+        int alternative(int table, Key k)
+        {
+            return (table == 0) ? h1(k) : h0(k);
+        }
+    }
+
+    private volatile Tables<Key,Value> tables;
+    private final ReentrantLock[] locks;
+    private final AtomicInteger size;
+    private final TimeSource timeSource;
+    private final long forgettingWindowMillis;
+    private volatile long currentTimeMillis;
+    //tempo acumulado com advanceTime, somado ao tempo da TimeSource
+    private volatile long timeOffsetMillis;
+    private volatile boolean advanceTimeStatus;
+    private final AtomicLongArray versions;
+    private volatile boolean optimisticReads;
+
+    //timeSource pode ser null, e nesse caso o tempo só avança com advanceTime
+    public ConcurrentForgettingCuckooHashTable(int primeIndex, int concurrencyLevel, TimeSource timeSource,
+                                               long forgettingWindowMillis)
+    {
+        if(concurrencyLevel < 1) throw new IllegalArgumentException();
+        if(forgettingWindowMillis <= 0) throw new IllegalArgumentException();
+
+        this.tables = new Tables<Key,Value>(primeIndex);
+        this.locks = new ReentrantLock[concurrencyLevel];
+        for(int i = 0; i < concurrencyLevel; i++)
+        {
+            this.locks[i] = new ReentrantLock();
+        }
+        this.size = new AtomicInteger();
+        this.timeSource = timeSource;
+        this.forgettingWindowMillis = forgettingWindowMillis;
+        this.currentTimeMillis = (timeSource != null) ? timeSource.currentTimeMillis() : System.currentTimeMillis();
+        this.timeOffsetMillis = 0;
+        //com um relógio real as chaves são esquecidas desde o início
+        this.advanceTimeStatus = timeSource != null;
+        this.versions = new AtomicLongArray(concurrencyLevel);
+        this.optimisticReads = false;
+    }
+
+    public ConcurrentForgettingCuckooHashTable(int primeIndex, int concurrencyLevel)
+    {
+        this(primeIndex, concurrencyLevel, null, DEFAULT_FORGETTING_WINDOW);
+    }
+
+    public ConcurrentForgettingCuckooHashTable(int primeIndex, TimeSource timeSource, long forgettingWindowMillis)
+    {
+        this(primeIndex, DEFAULT_CONCURRENCY_LEVEL, timeSource, forgettingWindowMillis);
+    }
+
+    public ConcurrentForgettingCuckooHashTable(int primeIndex)
+    {
+        this(primeIndex, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentForgettingCuckooHashTable()
+    {
+        this(0);
+    }
+
+    //cada stripe protege uma faixa contígua de posições de T0 e a faixa correspondente de T1
+    private int stripe(Tables<Key,Value> t, int table, int index)
+    {
+        int m = (table == 0) ? t.mT0 : t.mT1;
+        return (int) ((long) index * this.locks.length / m);
+    }
+
+    private void lockPair(int a, int b)
+    {
+        if(a == b)
+            this.locks[a].lock();
+        else
+        {
+            this.locks[Math.min(a, b)].lock();
+            this.locks[Math.max(a, b)].lock();
+        }
+    }
+
+    private void unlockPair(int a, int b)
+    {
+        this.locks[a].unlock();
+        if(a != b)
+            this.locks[b].unlock();
+    }
+
+    //adquire os dois stripes e marca as suas versões como ímpares, para que os leitores otimistas repitam a leitura
+    private void lockPairForWrite(int a, int b)
+    {
+        lockPair(a, b);
+        this.versions.incrementAndGet(a);
+        if(a != b)
+            this.versions.incrementAndGet(b);
+    }
+
+    private void unlockPairAfterWrite(int a, int b)
+    {
+        this.versions.incrementAndGet(a);
+        if(a != b)
+            this.versions.incrementAndGet(b);
+        unlockPair(a, b);
+    }
+
+    private void lockAll()
+    {
+        for(ReentrantLock lock : this.locks)
+        {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll()
+    {
+        for(int i = this.locks.length - 1; i >= 0; i--)
+        {
+            this.locks[i].unlock();
+        }
+    }
+
+    public int size()
+    {
+        return this.size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity()
+    {
+        Tables<Key,Value> t = this.tables;
+        return t.mT0 + t.mT1;
+    }
+
+    public float getLoadFactor()
+    {
+        return (float) size()/getCapacity();
+    }
+
+    public int getConcurrencyLevel()
+    {
+        return this.locks.length;
+    }
+
+    public long getForgettingWindowMillis()
+    {
+        return this.forgettingWindowMillis;
+    }
+
+    //o tempo atual; com uma TimeSource é lido em cada operação, já que não há um início de operação partilhado
+    //onde o atualizar sem sincronizar as threads
+    private long now()
+    {
+        if(this.timeSource != null)
+            return this.timeSource.currentTimeMillis() + this.timeOffsetMillis;
+        return this.currentTimeMillis;
+    }
+
+    //com leituras otimistas, get e containsKey nunca adquirem locks nem escrevem em memória partilhada;
+    //em contrapartida, as leituras deixam de atualizar o timestamp das chaves
+    public void setOptimisticReads(boolean state)
+    {
+        this.optimisticReads = state;
+    }
+
+    public boolean containsKey(Key k) {
+        if(this.optimisticReads)
+            return readOptimistic(k) != null;
+
+        while(true)
+        {
+            Tables<Key,Value> t = this.tables;
+            int i0 = t.h0(k);
+            int i1 = t.h1(k);
+            int s0 = stripe(t, 0, i0);
+            int s1 = stripe(t, 1, i1);
+            lockPair(s0, s1);
+            try
+            {
+                if(t != this.tables) continue;
+                return k.equals(t.keysT0[i0]) || k.equals(t.keysT1[i1]);
+            }
+            finally
+            {
+                unlockPair(s0, s1);
+            }
+        }
+    }
+
+    public Value get(Key k)
+    {
+        if(this.optimisticReads)
+            return readOptimistic(k);
+
+        while(true)
+        {
+            Tables<Key,Value> t = this.tables;
+            int i0 = t.h0(k);
+            int i1 = t.h1(k);
+            int s0 = stripe(t, 0, i0);
+            int s1 = stripe(t, 1, i1);
+            lockPair(s0, s1);
+            try
+            {
+                if(t != this.tables) continue;
+                if(k.equals(t.keysT0[i0]))
+                {
+                    t.timestampsT0[i0] = now();
+                    return t.valuesT0[i0];
+                }
+                if(k.equals(t.keysT1[i1]))
+                {
+                    t.timestampsT1[i1] = now();
+                    return t.valuesT1[i1];
+                }
+                return null;
+            }
+            finally
+            {
+                unlockPair(s0, s1);
+            }
+        }
+    }
+
+    //leitura sem locks, validada pelas versões dos dois stripes da chave.
+    //Devolve o valor da chave, ou null se a chave não existe (a tabela nunca guarda valores null)
+    private Value readOptimistic(Key k)
+    {
+        while(true)
+        {
+            Tables<Key,Value> t = this.tables;
+            int i0 = t.h0(k);
+            int i1 = t.h1(k);
+            int s0 = stripe(t, 0, i0);
+            int s1 = stripe(t, 1, i1);
+            long version0 = this.versions.get(s0);
+            long version1 = this.versions.get(s1);
+            if((version0 & 1) != 0 || (version1 & 1) != 0)
+            {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            Key k0 = t.keysT0[i0];
+            Value v0 = t.valuesT0[i0];
+            Key k1 = t.keysT1[i1];
+            Value v1 = t.valuesT1[i1];
+
+            VarHandle.acquireFence();
+            if(this.versions.get(s0) != version0 || this.versions.get(s1) != version1 || t != this.tables)
+                continue;
+
+            if(k.equals(k0))
+                return v0;
+            if(k.equals(k1))
+                return v1;
+            return null;
+        }
+    }
+
+    public void put(Key k, Value v)
+    {
+        if(k == null) throw new IllegalArgumentException();
+
+        if(v == null)
+        {
+            delete(k);
+            return;
+        }
+
+        while(true)
+        {
+            Tables<Key,Value> t = this.tables;
+            if(getLoadFactor() >= 0.5f)
+            {
+                resize(t, t.primeIndex + 1);
+                t = this.tables;
+            }
+
+            int result = tryPut(t, k, v);
+            if(result == PUT_DONE)
+                return;
+            if(result == PUT_RETRY)
+                continue;
+
+            //as duas posições estão ocupadas: procura um caminho de trocas a começar em T0 ou em T1
+            int first = ThreadLocalRandom.current().nextInt(2);
+            int[] path = PATH_BUFFER.get();
+            int length = findPath(t, k, first, path);
+            if(length < 0)
+            {
+                first = 1 - first;
+                length = findPath(t, k, first, path);
+            }
+            if(length < 0)
+            {
+                //na maior capacidade não há para onde crescer, e voltar a tentar nunca terminaria
+                if(!resize(t, t.primeIndex + 1))
+                    throw new IllegalStateException("the table cannot grow to fit the key");
+                continue;
+            }
+            executePath(t, first, path, length);
+        }
+    }
+
+    private static final int PUT_DONE = 0;
+    private static final int PUT_RETRY = 1;
+    private static final int PUT_FULL = 2;
+
+    //tenta atualizar ou inserir a chave numa das suas duas posições.
+    //Devolve PUT_RETRY se as tabelas foram trocadas por um resize entretanto, e PUT_FULL se as duas posições estão ocupadas
+    private int tryPut(Tables<Key,Value> t, Key k, Value v)
+    {
+        int i0 = t.h0(k);
+        int i1 = t.h1(k);
+        int s0 = stripe(t, 0, i0);
+        int s1 = stripe(t, 1, i1);
+        lockPairForWrite(s0, s1);
+        try
+        {
+            if(t != this.tables) return PUT_RETRY;
+            long now = now();
+
+            if(k.equals(t.keysT0[i0]))
+            {
+                t.valuesT0[i0] = v;
+                t.timestampsT0[i0] = now;
+                return PUT_DONE;
+            }
+            if(k.equals(t.keysT1[i1]))
+            {
+                t.valuesT1[i1] = v;
+                t.timestampsT1[i1] = now;
+                return PUT_DONE;
+            }
+            if(t.keysT0[i0] == null)
+            {
+                set(t, 0, i0, k, v, now);
+                this.size.incrementAndGet();
+                return PUT_DONE;
+            }
+            if(t.keysT1[i1] == null)
+            {
+                set(t, 1, i1, k, v, now);
+                this.size.incrementAndGet();
+                return PUT_DONE;
+            }
+            if(checkSameHashCode(t, k, i0, i1))
+                throw new IllegalArgumentException();
+            if(this.advanceTimeStatus)
+            {
+                //a chave antiga é esquecida e substituída pela nova
+                if(isKeyExpired(t.timestampsT0[i0], now))
+                {
+                    set(t, 0, i0, k, v, now);
+                    return PUT_DONE;
+                }
+                if(isKeyExpired(t.timestampsT1[i1], now))
+                {
+                    set(t, 1, i1, k, v, now);
+                    return PUT_DONE;
+                }
+            }
+            return PUT_FULL;
+        }
+        finally
+        {
+            unlockPairAfterWrite(s0, s1);
+        }
+    }
+
+    private static <Key,Value> void set(Tables<Key,Value> t, int table, int index, Key k, Value v, long timestamp)
+    {
+        t.keys(table)[index] = k;
+        t.values(table)[index] = v;
+        t.timestamps(table)[index] = timestamp;
+    }
+
+    private boolean checkSameHashCode(Tables<Key,Value> t, Key k, int i0, int i1)
+    {
+        int hashCode = k.hashCode();
+        return t.keysT0[i0].hashCode() == hashCode && t.keysT1[i1].hashCode() == hashCode;
+    }
+
+    private boolean isKeyExpired(long timeStamp, long now) {
+        return now - timeStamp > this.forgettingWindowMillis;
+    }
+
+    //procura, sem adquirir locks, um caminho de trocas desde uma posição da chave até uma posição livre.
+    //Os índices das posições do caminho ficam em path[0..length], a começar na tabela firstTable e alternando
+    //de tabela em tabela, e a última posição é a que está livre. Devolve length, ou -1 se não encontrar um caminho curto
+    private int findPath(Tables<Key,Value> t, Key k, int firstTable, int[] path)
+    {
+        int table = firstTable;
+        int index = (table == 0) ? t.h0(k) : t.h1(k);
+        path[0] = index;
+
+        for(int length = 0; length < MAX_PATH_LENGTH; length++)
+        {
+            Key current = t.keys(table)[index];
+            if(current == null)
+                return length;
+            index = t.alternative(table, current);
+            table = 1 - table;
+            path[length + 1] = index;
+        }
+        return -1;
+    }
+
+    //executa o caminho do fim para o início: a chave de cada posição passa para a posição seguinte, que está livre.
+    //Cada troca adquire apenas os stripes das duas posições, e verifica se o caminho ainda é válido
+    private boolean executePath(Tables<Key,Value> t, int firstTable, int[] path, int length)
+    {
+        for(int i = length - 1; i >= 0; i--)
+        {
+            int fromTable = (i % 2 == 0) ? firstTable : 1 - firstTable;
+            int toTable = 1 - fromTable;
+            int from = path[i];
+            int to = path[i + 1];
+            int sFrom = stripe(t, fromTable, from);
+            int sTo = stripe(t, toTable, to);
+            lockPairForWrite(sFrom, sTo);
+            try
+            {
+                if(t != this.tables) return false;
+                Key k = t.keys(fromTable)[from];
+                if(k == null || t.keys(toTable)[to] != null || t.alternative(fromTable, k) != to)
+                    return false;
+                set(t, toTable, to, k, t.values(fromTable)[from], t.timestamps(fromTable)[from]);
+                set(t, fromTable, from, null, null, 0);
+            }
+            finally
+            {
+                unlockPairAfterWrite(sFrom, sTo);
+            }
+        }
+        return true;
+    }
+
+    //reconstrói as tabelas com a nova capacidade, com todos os stripes adquiridos.
+    //Se entretanto outra thread já tiver feito o resize, não faz nada.
+    //Devolve false se as tabelas não mudaram: o índice pedido não existe ou nenhuma capacidade maior serve
+    private boolean resize(Tables<Key,Value> expected, int primeIndex)
+    {
+        if(primeIndex < 0 || primeIndex >= CuckooPrimes.primesTable0.length || primeIndex >= CuckooPrimes.primesTable1.length) return false;
+
+        lockAll();
+        try
+        {
+            if(this.tables != expected) return true;
+            Tables<Key,Value> aux = rebuild(expected, primeIndex);
+            while(aux == null && ++primeIndex < CuckooPrimes.primesTable0.length)
+                aux = rebuild(expected, primeIndex);
+            if(aux == null)
+                return false;
+            this.tables = aux;
+            return true;
+        }
+        finally
+        {
+            unlockAll();
+        }
+    }
+
+    //copia todas as chaves para tabelas novas, mantendo o timestamp de cada chave.
+    //Devolve null se alguma chave não puder ser inserida
+    private Tables<Key,Value> rebuild(Tables<Key,Value> old, int primeIndex)
+    {
+        Tables<Key,Value> aux = new Tables<Key,Value>(primeIndex);
+        for(int table = 0; table < 2; table++)
+        {
+            Key[] keys = old.keys(table);
+            for(int i = 0; i < keys.length; i++)
+            {
+                if(keys[i] != null && !insertSingleThreaded(aux, keys[i], old.values(table)[i], old.timestamps(table)[i]))
+                    return null;
+            }
+        }
+        return aux;
+    }
+
+    //inserção clássica por trocas sucessivas, só usada enquanto todos os stripes estão adquiridos
+    private static <Key,Value> boolean insertSingleThreaded(Tables<Key,Value> t, Key k, Value v, long timestamp)
+    {
+        int currentTable = 0;
+        int maxSwaps = 1000;
+
+        for(int swaps = 0; swaps < maxSwaps; swaps++)
+        {
+            int index = (currentTable == 0) ? t.h0(k) : t.h1(k);
+            Key tempKey = t.keys(currentTable)[index];
+            Value tempValue = t.values(currentTable)[index];
+            long tempTimestamp = t.timestamps(currentTable)[index];
+            set(t, currentTable, index, k, v, timestamp);
+            if(tempKey == null)
+                return true;
+            k = tempKey;
+            v = tempValue;
+            timestamp = tempTimestamp;
+            currentTable = 1 - currentTable;
+        }
+        return false;
+    }
+
+    public void delete(Key k)
+    {
+        while(true)
+        {
+            Tables<Key,Value> t = this.tables;
+            int i0 = t.h0(k);
+            int i1 = t.h1(k);
+            int s0 = stripe(t, 0, i0);
+            int s1 = stripe(t, 1, i1);
+            boolean deleted = false;
+            lockPairForWrite(s0, s1);
+            try
+            {
+                if(t != this.tables) continue;
+                if(k.equals(t.keysT0[i0]))
+                {
+                    set(t, 0, i0, null, null, 0);
+                    deleted = true;
+                }
+                else if(k.equals(t.keysT1[i1]))
+                {
+                    set(t, 1, i1, null, null, 0);
+                    deleted = true;
+                }
+            }
+            finally
+            {
+                unlockPairAfterWrite(s0, s1);
+            }
+
+            if(deleted)
+            {
+                this.size.decrementAndGet();
+                if(getLoadFactor() < 0.125f && t.primeIndex > 0)
+                    resize(t, t.primeIndex - 1);
+            }
+            return;
+        }
+    }
+
+    //devolve uma cópia das chaves existentes no momento da chamada
+    public Iterable<Key> keys() {
+        List<Key> allKeys = new ArrayList<>();
+        lockAll();
+        try
+        {
+            Tables<Key,Value> t = this.tables;
+            for(int table = 0; table < 2; table++)
+            {
+                for(Key key : t.keys(table))
+                {
+                    if(key != null)
+                        allKeys.add(key);
+                }
+            }
+        }
+        finally
+        {
+            unlockAll();
+        }
+        return allKeys;
+    }
+
+    public void advanceTime(int hours) {
+        this.currentTimeMillis += (hours * 3600000L);
+        this.timeOffsetMillis += (hours * 3600000L);
+        this.advanceTimeStatus = true;
+    }
+}
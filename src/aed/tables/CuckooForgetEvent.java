@@ -0,0 +1,24 @@
+package aed.tables;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//evento JFR para um lote de chaves esquecidas: as chaves que uma inserção substituiu por já terem expirado (reportadas
+//em lotes, ou quando a tabela é redimensionada), e as chaves removidas por um avanço da roda temporal
+@Name("aed.tables.CuckooForget")
+@Label("Cuckoo Forget")
+@Category({"AED", "Cuckoo Hash Table"})
+@Description("Keys of a ForgettingCuckooHashTable were forgotten")
+class CuckooForgetEvent extends jdk.jfr.Event {
+
+    @Label("Forgotten On Collision")
+    int forgottenOnCollision;
+
+    @Label("Expired By Wheel")
+    int expiredByWheel;
+
+    @Label("Rescheduled By Wheel")
+    int rescheduledByWheel;
+}
@@ -0,0 +1,27 @@
+package aed.tables;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//evento JFR para uma inserção cuja cadeia de trocas chegou ao limite definido com setLongKickChainThreshold
+@Name("aed.tables.CuckooLongKickChain")
+@Label("Cuckoo Long Kick Chain")
+@Category({"AED", "Cuckoo Hash Table"})
+@Description("An insertion into a ForgettingCuckooHashTable needed a long chain of swaps")
+class CuckooLongKickChainEvent extends jdk.jfr.Event {
+
+    @Label("Swaps")
+    int swaps;
+
+    @Label("Failed")
+    @Description("The chain gave up, and the key went to the stash or caused a rehash or resize")
+    boolean failed;
+
+    @Label("Prime Index")
+    int primeIndex;
+
+    @Label("Bucket Size")
+    int bucketSize;
+}
@@ -0,0 +1,24 @@
+package aed.tables;
+
+//tamanhos das tabelas T0 e T1 para cada índice, partilhados por todas as tabelas de cuckoo hashing do pacote.
+//Os números de cada índice são primos próximos mas diferentes, e cada índice aproximadamente duplica o anterior
+final class CuckooPrimes {
+
+    static final int[] primesTable0 = {
+            7, 17, 37, 79, 163, 331,
+            673, 1361, 2729, 5471, 10949,
+            21911, 43853, 87719, 175447, 350899,
+            701819, 1403641, 2807303, 5614657,
+            11229331, 22458671, 44917381, 89834777, 179669557
+    };
+
+    static final int[] primesTable1 = {
+            11, 19, 41, 83, 167, 337,
+            677, 1367, 2731, 5477, 10957,
+            21929, 43867, 87721, 175453, 350941,
+            701837, 1403651, 2807323, 5614673,
+            11229341, 22458677, 44917399, 89834821, 179669563
+    };
+
+    private CuckooPrimes() {}
+}
@@ -0,0 +1,27 @@
+package aed.tables;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//evento JFR para um resize (ou um rehash com o mesmo tamanho) de uma ForgettingCuckooHashTable. A duração de um resize
+//feito de uma vez cobre toda a reconstrução; numa migração incremental vai do início ao fim da migração
+@Name("aed.tables.CuckooResize")
+@Label("Cuckoo Resize")
+@Category({"AED", "Cuckoo Hash Table"})
+@Description("A ForgettingCuckooHashTable was rebuilt with a new size or hash seed")
+class CuckooResizeEvent extends jdk.jfr.Event {
+
+    @Label("Old Prime Index")
+    int oldPrimeIndex;
+
+    @Label("New Prime Index")
+    int newPrimeIndex;
+
+    @Label("Entries Moved")
+    int entriesMoved;
+
+    @Label("Incremental")
+    boolean incremental;
+}
@@ -0,0 +1,459 @@
+package aed.tables;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//versão da ForgettingCuckooHashTable com d tabelas (de 2 a 8), cada uma com a sua função de hash: cada chave só
+//pode estar na sua posição de uma das d tabelas, e por isso um get lê no máximo d posições.
+//Com mais escolhas a tabela pode ficar muito mais cheia antes de as inserções começarem a falhar (cerca de 50%
+//com 2 tabelas, 91% com 3 e 97% com 4), e por isso o fator de carga máximo por omissão depende de d.
+//Quando as d posições da chave estão ocupadas (e nenhuma das chaves pode ser esquecida), a inserção expulsa a
+//chave de uma das outras tabelas escolhida ao acaso (passeio aleatório) ou, no modo BFS, procura primeiro o
+//caminho de trocas mais curto. Tal como no modo com buckets, o timestamp de cada chave acompanha-a nas trocas
+public class DAryForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Value> {
+
+    private static final long DEFAULT_FORGETTING_WINDOW = 24 * 3600000L;
+    private static final int MAX_SWAPS = 500;
+    private static final int MAX_BFS_NODES = 2048;
+
+    private final int d;
+    private final float maxLoadFactor;
+    private int primeIndex;
+    //todas as tabelas têm m posições
+    private int m;
+    private int size;
+    private Key[][] keys;
+    private Value[][] values;
+    private long[][] timestamps;
+    //a tabela j usa a função de hash j, que mistura o hashcode da chave com seeds[j]
+    private final long[] seeds;
+    private final TimeSource timeSource;
+    private final long forgettingWindowMillis;
+    private long currentTimeMillis;
+    //tempo acumulado com advanceTime, somado ao tempo da TimeSource
+    private long timeOffsetMillis;
+    private boolean advanceTimeStatus;
+    private boolean isResizing;
+    private boolean bfsInsertion;
+    private int kickSeed;
+    private int[] bfsTable;
+    private int[] bfsSlot;
+    private int[] bfsParent;
+
+    @SuppressWarnings("unchecked")
+    public DAryForgettingCuckooHashTable(int d, int primeIndex, float maxLoadFactor, TimeSource timeSource, long forgettingWindowMillis)
+    {
+        if(d < 2 || d > 8) throw new IllegalArgumentException();
+        if(maxLoadFactor <= 0 || maxLoadFactor >= 1) throw new IllegalArgumentException();
+        if(forgettingWindowMillis <= 0) throw new IllegalArgumentException();
+
+        this.d = d;
+        this.maxLoadFactor = maxLoadFactor;
+        this.primeIndex = primeIndex;
+        this.m = CuckooPrimes.primesTable0[primeIndex];
+        this.size = 0;
+        this.keys = (Key[][]) new Object[d][this.m];
+        this.values = (Value[][]) new Object[d][this.m];
+        this.timestamps = new long[d][this.m];
+        this.seeds = new long[d];
+        for(int j = 0; j < d; j++)
+        {
+            this.seeds[j] = (j + 1) * 0x9E3779B97F4A7C15L;
+        }
+        this.timeSource = timeSource;
+        this.forgettingWindowMillis = forgettingWindowMillis;
+        this.currentTimeMillis = (timeSource != null) ? timeSource.currentTimeMillis() : System.currentTimeMillis();
+        this.timeOffsetMillis = 0;
+        this.advanceTimeStatus = timeSource != null;
+        this.isResizing = false;
+        this.bfsInsertion = false;
+        this.kickSeed = 0x2545F491;
+    }
+
+    public DAryForgettingCuckooHashTable(int d, int primeIndex, TimeSource timeSource, long forgettingWindowMillis)
+    {
+        this(d, primeIndex, defaultMaxLoadFactor(d), timeSource, forgettingWindowMillis);
+    }
+
+    public DAryForgettingCuckooHashTable(int d, int primeIndex)
+    {
+        this(d, primeIndex, null, DEFAULT_FORGETTING_WINDOW);
+    }
+
+    public DAryForgettingCuckooHashTable(int d)
+    {
+        this(d, 0);
+    }
+
+    public DAryForgettingCuckooHashTable()
+    {
+        this(3);
+    }
+
+    //um pouco abaixo do limite a partir do qual as inserções com d escolhas começam a falhar
+    private static float defaultMaxLoadFactor(int d)
+    {
+        if(d == 2)
+            return 0.5f;
+        if(d == 3)
+            return 0.9f;
+        return 0.95f;
+    }
+
+    //fmix64 do MurmurHash3 sobre o hashcode misturado com a semente da tabela
+    private int hash(Key k, int table)
+    {
+        long h = k.hashCode() ^ this.seeds[table];
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) ((h >>> 1) % this.m);
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity()
+    {
+        return this.d * this.m;
+    }
+
+    public int getNumberOfTables()
+    {
+        return this.d;
+    }
+
+    public float getMaxLoadFactor()
+    {
+        return this.maxLoadFactor;
+    }
+
+    public float getLoadFactor()
+    {
+        return (float) size()/getCapacity();
+    }
+
+    public long getForgettingWindowMillis()
+    {
+        return this.forgettingWindowMillis;
+    }
+
+    public void setBfsInsertion(boolean state)
+    {
+        this.bfsInsertion = state;
+    }
+
+    public boolean containsKey(Key k) {
+        for(int j = 0; j < this.d; j++)
+        {
+            if(k.equals(this.keys[j][hash(k, j)]))
+                return true;
+        }
+        return false;
+    }
+
+    public Value get(Key k)
+    {
+        refreshTime();
+        for(int j = 0; j < this.d; j++)
+        {
+            int i = hash(k, j);
+            if(k.equals(this.keys[j][i]))
+            {
+                if(!this.isResizing)
+                    this.timestamps[j][i] = this.currentTimeMillis;
+                return this.values[j][i];
+            }
+        }
+        return null;
+    }
+
+    private void refreshTime()
+    {
+        if(this.timeSource != null)
+            this.currentTimeMillis = this.timeSource.currentTimeMillis() + this.timeOffsetMillis;
+    }
+
+    private boolean canForget(int table, int slot)
+    {
+        return this.advanceTimeStatus && !this.isResizing
+                && this.currentTimeMillis - this.timestamps[table][slot] > this.forgettingWindowMillis;
+    }
+
+    private void resize(int primeIndex)
+    {
+        if(primeIndex < 0 || primeIndex >= CuckooPrimes.primesTable0.length) return;
+
+        this.primeIndex = primeIndex;
+        this.isResizing = true;
+
+        DAryForgettingCuckooHashTable<Key,Value> aux = new DAryForgettingCuckooHashTable<Key,Value>(this.d, this.primeIndex,
+                this.maxLoadFactor, null, this.forgettingWindowMillis);
+        aux.currentTimeMillis = this.currentTimeMillis;
+        aux.bfsInsertion = this.bfsInsertion;
+        aux.kickSeed = this.kickSeed;
+        aux.isResizing = true;
+
+        for(int j = 0; j < this.d; j++)
+        {
+            for(int i = 0; i < this.m; i++)
+            {
+                if(this.keys[j][i] != null) aux.insert(this.keys[j][i], this.values[j][i], this.timestamps[j][i]);
+            }
+        }
+
+        this.isResizing = false;
+        //a tabela auxiliar pode ter crescido se alguma inserção falhou durante o resize
+        this.primeIndex = aux.primeIndex;
+        this.m = aux.m;
+        this.size = aux.size;
+        this.keys = aux.keys;
+        this.values = aux.values;
+        this.timestamps = aux.timestamps;
+        this.kickSeed = aux.kickSeed;
+    }
+
+    public void put(Key k, Value v)
+    {
+        if(k == null) throw new IllegalArgumentException();
+
+        if(v == null)
+        {
+            delete(k);
+            return;
+        }
+
+        refreshTime();
+        for(int j = 0; j < this.d; j++)
+        {
+            int i = hash(k, j);
+            if(k.equals(this.keys[j][i]))
+            {
+                this.values[j][i] = v;
+                this.timestamps[j][i] = this.currentTimeMillis;
+                return;
+            }
+        }
+
+        if(getLoadFactor() >= this.maxLoadFactor)
+            resize(this.primeIndex+1);
+
+        insert(k, v, this.currentTimeMillis);
+    }
+
+    //insere uma chave que ainda não está na tabela, com o timestamp indicado
+    private void insert(Key k, Value v, long timestamp)
+    {
+        if(this.bfsInsertion)
+        {
+            if(insertBfs(k, v, timestamp))
+                return;
+        }
+        else
+        {
+            int from = -1;
+            for(int swaps = 0; swaps < MAX_SWAPS; swaps++)
+            {
+                //primeiro uma posição livre em qualquer das tabelas, depois uma chave que pode ser esquecida
+                for(int j = 0; j < this.d; j++)
+                {
+                    int i = hash(k, j);
+                    if(this.keys[j][i] == null)
+                    {
+                        place(j, i, k, v, timestamp);
+                        this.size++;
+                        return;
+                    }
+                }
+                for(int j = 0; j < this.d; j++)
+                {
+                    int i = hash(k, j);
+                    if(canForget(j, i))
+                    {
+                        place(j, i, k, v, timestamp);
+                        return;
+                    }
+                }
+                if(swaps == 0 && checkSameHashCode(k))
+                    throw new IllegalArgumentException();
+
+                //a chave vai para uma das tabelas de onde não acabou de sair, e expulsa a chave que lá estava
+                int table = nextKickTable((from < 0) ? this.d : this.d - 1);
+                if(from >= 0 && table >= from)
+                    table++;
+                int slot = hash(k, table);
+                Key tempKey = this.keys[table][slot];
+                Value tempValue = this.values[table][slot];
+                long tempTimestamp = this.timestamps[table][slot];
+                place(table, slot, k, v, timestamp);
+                k = tempKey;
+                v = tempValue;
+                timestamp = tempTimestamp;
+                from = table;
+            }
+        }
+
+        resize(this.primeIndex + 1);
+        insert(k, v, timestamp);
+    }
+
+    private void place(int table, int slot, Key k, Value v, long timestamp)
+    {
+        this.keys[table][slot] = k;
+        this.values[table][slot] = v;
+        this.timestamps[table][slot] = timestamp;
+    }
+
+    //escolhe uma tabela entre 0 e n-1 (xorshift, para não alocar um Random)
+    private int nextKickTable(int n)
+    {
+        int x = this.kickSeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        this.kickSeed = x;
+        return (x & 0x7fffffff) % n;
+    }
+
+    //a chave não pode ser inserida se as suas d posições estiverem ocupadas por chaves com o mesmo hashcode
+    private boolean checkSameHashCode(Key currentKey) {
+        int hashCode = currentKey.hashCode();
+        for(int j = 0; j < this.d; j++)
+        {
+            Key other = this.keys[j][hash(currentKey, j)];
+            if(other == null || other.hashCode() != hashCode)
+                return false;
+        }
+        return true;
+    }
+
+    //procura em largura do caminho de trocas mais curto até uma posição livre (ou com uma chave esquecida), e
+    //executa-o. Devolve false, sem ter movido nenhuma chave, se não houver caminho dentro de MAX_BFS_NODES posições
+    private boolean insertBfs(Key k, Value v, long timestamp)
+    {
+        if(checkSameHashCode(k))
+            throw new IllegalArgumentException();
+        if(this.bfsSlot == null)
+        {
+            this.bfsTable = new int[MAX_BFS_NODES];
+            this.bfsSlot = new int[MAX_BFS_NODES];
+            this.bfsParent = new int[MAX_BFS_NODES];
+        }
+
+        int tail = 0;
+        for(int j = 0; j < this.d; j++)
+        {
+            if(addBfsNode(tail++, j, hash(k, j), -1))
+            {
+                executeBfsPath(tail - 1, k, v, timestamp);
+                return true;
+            }
+        }
+
+        for(int head = 0; head < tail; head++)
+        {
+            int table = this.bfsTable[head];
+            Key current = this.keys[table][this.bfsSlot[head]];
+            for(int j = 0; j < this.d; j++)
+            {
+                if(j == table)
+                    continue;
+                if(tail >= MAX_BFS_NODES)
+                    return false;
+                int slot = hash(current, j);
+                if(isBfsAncestor(head, j, slot))
+                    continue;
+                if(addBfsNode(tail++, j, slot, head))
+                {
+                    executeBfsPath(tail - 1, k, v, timestamp);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    //adiciona uma posição à fila da procura, e devolve true se essa posição pode receber uma chave
+    private boolean addBfsNode(int node, int table, int slot, int parent)
+    {
+        this.bfsTable[node] = table;
+        this.bfsSlot[node] = slot;
+        this.bfsParent[node] = parent;
+        return this.keys[table][slot] == null || canForget(table, slot);
+    }
+
+    private boolean isBfsAncestor(int node, int table, int slot)
+    {
+        for(int n = node; n >= 0; n = this.bfsParent[n])
+        {
+            if(this.bfsTable[n] == table && this.bfsSlot[n] == slot)
+                return true;
+        }
+        return false;
+    }
+
+    //executa o caminho do fim para o início: cada chave avança para a posição seguinte do caminho, e a nova chave
+    //fica na primeira. Se a posição final tiver uma chave esquecida, essa chave desaparece
+    private void executeBfsPath(int end, Key k, Value v, long timestamp)
+    {
+        if(this.keys[this.bfsTable[end]][this.bfsSlot[end]] == null)
+            this.size++;
+
+        int node = end;
+        while(this.bfsParent[node] >= 0)
+        {
+            int parent = this.bfsParent[node];
+            int fromTable = this.bfsTable[parent];
+            int from = this.bfsSlot[parent];
+            place(this.bfsTable[node], this.bfsSlot[node], this.keys[fromTable][from], this.values[fromTable][from],
+                    this.timestamps[fromTable][from]);
+            node = parent;
+        }
+        place(this.bfsTable[node], this.bfsSlot[node], k, v, timestamp);
+    }
+
+    public void delete(Key k)
+    {
+        refreshTime();
+        for(int j = 0; j < this.d; j++)
+        {
+            int i = hash(k, j);
+            if(k.equals(this.keys[j][i]))
+            {
+                this.keys[j][i] = null;
+                this.values[j][i] = null;
+                this.size--;
+                if(getLoadFactor() < this.maxLoadFactor / 4 && this.primeIndex > 0)
+                    resize(this.primeIndex-1);
+                return;
+            }
+        }
+    }
+
+    public Iterable<Key> keys() {
+        List<Key> allKeys = new ArrayList<>();
+        for(int j = 0; j < this.d; j++)
+        {
+            for(int i = 0; i < this.m; i++)
+            {
+                if(this.keys[j][i] != null) allKeys.add(this.keys[j][i]);
+            }
+        }
+        return allKeys;
+    }
+
+    public void advanceTime(int hours) {
+        this.currentTimeMillis += (hours * 3600000L);
+        this.timeOffsetMillis += (hours * 3600000L);
+        this.advanceTimeStatus = true;
+    }
+}
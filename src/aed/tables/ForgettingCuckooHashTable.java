@@ -1,32 +1,21 @@
 package aed.tables;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
-import java.util.function.Consumer;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
-import aed.utils.TimeAnalysisUtils;
-
-public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Value> {
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 
-    private static int[] primesTable0 = {
-            7, 17, 37, 79, 163, 331,
-            673, 1361, 2729, 5471, 10949,
-            21911, 43853, 87719, 175447, 350899,
-            701819, 1403641, 2807303, 5614657,
-            11229331, 22458671, 44917381, 89834777, 179669557
-    };
-
-    private static int[] primesTable1 = {
-            11, 19, 41, 83, 167, 337,
-            677, 1367, 2731, 5477, 10957,
-            21929, 43867, 87721, 175453, 350941,
-            701837, 1403651, 2807323, 5614673,
-            11229341, 22458677, 44917399, 89834821, 179669563
-    };
+public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Value> {
 
     private int mT0;
     private int mT1;
@@ -38,33 +27,226 @@ public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Va
     private Key[] keysT1;
     private Value[] valuesT1;
     private boolean swapLogging;
-    private List<Integer> swapCounts;
+    private SwapStatistics swapStatistics;
+    //contadores das estatísticas (getStats); as tabelas auxiliares dos resizes e das migrações usam os contadores
+    //desta tabela, mas não contam as operações (gets, puts, deletes), que são contadas só na tabela original
+    private TableCounters counters;
+    private boolean countOperations;
+    private ObjectName mbeanName;
+    //eventos JFR (CuckooResize, CuckooLongKickChain, CuckooForget). Com os eventos desligados só fica o custo de
+    //contar as chaves esquecidas, que são reportadas em grupos de FORGET_EVENT_BATCH
+    private static final int MAX_SWAPS = 1000;
+    private static final int FORGET_EVENT_BATCH = 64;
+    private int longKickChainThreshold;
+    private int forgottenSinceEvent;
+    private CuckooResizeEvent migrationEvent;
     private boolean advanceTimeStatus;
     private long [] timestampsT0;
     private long [] timestampsT1;
     private long currentTimeMillis;
     private boolean isResizing;
-
+    //número de alterações que podem ter mudado as chaves de posição (inserções, remoções, resizes e passos da
+    //migração); o compute e o computeIfAbsent usam-no para saber se a função alterou a tabela
+    private int modCount;
+    //número de posições (slots) em cada bucket; com bucketSize > 1 cada índice dado por h0/h1 aponta para um bucket
+    //de posições contíguas, e uma chave só pode estar num dos seus dois buckets
+    private int bucketSize;
+    //etiquetas das posições, no modo com buckets: um long por bucket, com um byte por posição (0 se a posição
+    //estiver vazia, senão 0x80 mais 7 bits do hash da chave). Uma procura compara primeiro as etiquetas do bucket,
+    //de uma só vez, e só chama o equals nas posições cuja etiqueta é igual à da chave
+    private static final long TAG_LANES_LOW = 0x0101010101010101L;
+    private static final long TAG_LANES_HIGH = 0x8080808080808080L;
+    private long[] tagsT0;
+    private long[] tagsT1;
+    private float maxLoadFactor;
+    //estado do gerador pseudo-aleatório usado para escolher a vítima dentro de um bucket
+    private int kickSeed;
+    //resize incremental: em vez de reconstruir a tabela de uma só vez, a nova tabela (resizeTarget) fica ativa
+    //ao lado da antiga, e cada put/get/delete migra no máximo MIGRATION_STEP posições da tabela antiga
+    private static final int MIGRATION_STEP = 32;
+    private boolean incrementalResize;
+    private ForgettingCuckooHashTable<Key,Value> resizeTarget;
+    private int migrationIndex;
+    //inserção por procura em largura (BFS): antes de mover qualquer chave, procura o caminho de trocas mais curto
+    //até uma posição livre (ou com uma chave esquecida), explorando no máximo MAX_BFS_NODES posições
+    private static final int MAX_BFS_NODES = 2048;
+    private boolean bfsInsertion;
+    //modo estrito: as procuras e remoções só olham para h0(k) em T0 e h1(k) em T1 (e para o stash), em vez de
+    //continuarem pelas posições seguintes enquanto estiverem ocupadas. As inserções já só colocam chaves nessas
+    //posições, por isso o resultado é o mesmo; muda apenas o número de leituras e que timestamps o get atualiza
+    private boolean strictLookup;
+    private int[] bfsSlot;
+    private byte[] bfsTable;
+    private int[] bfsParent;
+    //stash: um pequeno array, verificado depois de T0 e T1, onde ficam as chaves que não foi possível inserir,
+    //para que uma cadeia de trocas falhada não obrigue logo a um resize
+    private int stashCapacity;
+    private int stashCount;
+    private Key[] stashKeys;
+    private Value[] stashValues;
+    private long[] stashTimestamps;
+    //família de funções de hash com semente; com null usam-se as funções h0/h1 originais, baseadas no hashCode.
+    //Quando uma inserção falha, a tabela escolhe uma nova semente e é reconstruída com a mesma capacidade,
+    //e só cresce depois de MAX_REHASHES sementes falhadas com o mesmo tamanho
+    private static final int MAX_REHASHES = 4;
+    private HashStrategy<? super Key> hashStrategy;
+    private long hashSeed;
+    private int rehashes;
+    //modo com tamanhos potência de 2: os índices são obtidos por multiply-shift (sem divisões) e as sondagens
+    //lineares dão a volta com uma máscara em vez do resto da divisão
+    private static final long MULTIPLIER_T0 = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER_T1 = 0xC2B2AE3D27D4EB4FL;
+    private boolean powerOfTwoSizes;
+    private int shiftT0;
+    private int shiftT1;
+    //relógio da tabela: sem TimeSource o tempo só avança com advanceTime; com uma TimeSource, o tempo é lido
+    //uma vez no início de cada put/get/delete (mais o tempo acumulado em advanceTime), e as chaves são
+    //esquecidas quando não são usadas durante forgettingWindowMillis
+    private static final long DEFAULT_FORGETTING_WINDOW = 24 * 3600000L;
+    private TimeSource timeSource;
+    private long timeOffsetMillis;
+    private long forgettingWindowMillis;
+    //expiração proativa: uma roda temporal hierárquica indica que chaves podem já ter sido esquecidas, e essas
+    //chaves são apagadas no início das operações seguintes, em vez de ficarem na tabela até haver uma colisão
+    private TimingWheel<Key> expiryWheel;
+    private List<TimingWheel.Node<Key>> dueKeys;
+    private boolean expiring;
+    //entrada de cada chave na roda, guardada ao lado da chave e movida com ela nas trocas, no stash e nos resizes,
+    //para que agendar ou cancelar uma chave não obrigue a procurá-la. A tabela da migração e as tabelas auxiliares
+    //dos resizes usam a roda desta tabela (e têm dueKeys a null), mas só esta tabela a faz avançar
+    private TimingWheel.Node<Key>[] nodesT0;
+    private TimingWheel.Node<Key>[] nodesT1;
+    private TimingWheel.Node<Key>[] stashNodes;
+    //registo dos acessos em buffer: um get guarda a posição da chave lida (e a própria chave, para confirmar depois
+    //que ela não mudou de posição) num pequeno buffer, em vez de escrever no array de timestamps. O buffer é despejado
+    //nos timestamps em lote no início de cada put/delete, ou pelo próprio get quando fica cheio. Os registos de
+    //chaves que entretanto mudaram de posição são descartados. Com accessSampleRate = n cada get é registado com
+    //probabilidade 1/n (escolha pseudo-aleatória, para não depender da ordem dos acessos)
+    private static final int ACCESS_BUFFER_SIZE = 128;
+    private int accessSampleRate;
+    private int accessSampleSeed;
+    //posição da chave lida: i para T0, ~i para T1
+    private int[] accessSlots;
+    private Object[] accessKeys;
+    private long[] accessTimes;
+    private int accessCount;
+    //tamanho máximo (0 = sem limite): com a tabela cheia, cada chave nova compete com uma vítima (admissão TinyLFU),
+    //e sai a que tiver a frequência estimada mais baixa no FrequencySketch. As vítimas candidatas são as chaves das
+    //posições da nova chave (as que a cadeia de trocas iria deslocar) e algumas posições escolhidas ao acaso;
+    //uma chave já esquecida é sempre a vítima escolhida
+    private static final int EVICTION_SAMPLES = 8;
+    private static final int NO_SLOT = Integer.MIN_VALUE;
+    private int maximumSize;
+    private FrequencySketch frequencySketch;
+    private int evictionSeed;
+    //peso máximo (0 = sem limite): com um Weigher, a soma dos pesos das chaves não pode passar do máximo,
+    //e as chaves removidas primeiro são as esquecidas e depois as mais pesadas e há mais tempo sem uso
+    private Weigher<? super Key, ? super Value> weigher;
+    private long maximumWeight;
+    private long totalWeight;
+
+    //com powerOfTwoSizes, o índice i corresponde a tabelas T0 e T1 com 2^(i+3) posições cada,
+    //em vez dos números primos de CuckooPrimes.
+    //timeSource pode ser null, e nesse caso o tempo só avança com advanceTime
     @SuppressWarnings("unchecked")
-    public ForgettingCuckooHashTable(int primeIndex)
+    public ForgettingCuckooHashTable(int primeIndex, int bucketSize, float maxLoadFactor, boolean powerOfTwoSizes,
+                                     TimeSource timeSource, long forgettingWindowMillis)
     {
+        if(bucketSize < 1 || bucketSize > 8) throw new IllegalArgumentException();
+        if(maxLoadFactor <= 0.0f || maxLoadFactor >= 1.0f) throw new IllegalArgumentException();
+        if(forgettingWindowMillis <= 0) throw new IllegalArgumentException();
+
         this.primeIndex = primeIndex;
-        this.mT0 = ForgettingCuckooHashTable.primesTable0[primeIndex];
-        this.mT1 = ForgettingCuckooHashTable.primesTable1[primeIndex];
+        this.bucketSize = bucketSize;
+        this.maxLoadFactor = maxLoadFactor;
+        this.kickSeed = 0x9E3779B9;
+        this.powerOfTwoSizes = powerOfTwoSizes;
+        if(powerOfTwoSizes)
+        {
+            this.mT0 = 1 << (primeIndex + 3);
+            this.mT1 = 1 << (primeIndex + 3);
+            this.shiftT0 = 64 - (primeIndex + 3);
+            this.shiftT1 = 64 - (primeIndex + 3);
+        }
+        else
+        {
+            this.mT0 = CuckooPrimes.primesTable0[primeIndex];
+            this.mT1 = CuckooPrimes.primesTable1[primeIndex];
+        }
         this.sizeT0 = 0;
         this.sizeT1 = 0; 
-        this.keysT0 = (Key[]) new Object[this.mT0];
-        this.valuesT0 = (Value[]) new Object[this.mT0];
-        this.keysT1 = (Key[]) new Object[this.mT1];
-        this.valuesT1 = (Value[]) new Object[this.mT1];
+        this.keysT0 = (Key[]) new Object[this.mT0 * bucketSize];
+        this.valuesT0 = (Value[]) new Object[this.mT0 * bucketSize];
+        this.keysT1 = (Key[]) new Object[this.mT1 * bucketSize];
+        this.valuesT1 = (Value[]) new Object[this.mT1 * bucketSize];
+        this.tagsT0 = (bucketSize > 1) ? new long[this.mT0] : null;
+        this.tagsT1 = (bucketSize > 1) ? new long[this.mT1] : null;
         this.swapLogging = false;
-        this.swapCounts = new ArrayList<>();
-        this.advanceTimeStatus = false;
-        this.timestampsT0 = new long[this.mT0];
-        this.timestampsT1 = new long[this.mT1];
-        this.currentTimeMillis = System.currentTimeMillis();
+        this.swapStatistics = new SwapStatistics();
+        this.counters = new TableCounters();
+        this.countOperations = true;
+        this.mbeanName = null;
+        this.longKickChainThreshold = 32;
+        this.forgottenSinceEvent = 0;
+        this.migrationEvent = null;
         this.advanceTimeStatus = false;
+        this.timestampsT0 = new long[this.mT0 * bucketSize];
+        this.timestampsT1 = new long[this.mT1 * bucketSize];
+        this.timeSource = timeSource;
+        this.timeOffsetMillis = 0;
+        this.forgettingWindowMillis = forgettingWindowMillis;
+        this.currentTimeMillis = (timeSource != null) ? timeSource.currentTimeMillis() : System.currentTimeMillis();
+        //com um relógio real as chaves são esquecidas desde o início
+        this.advanceTimeStatus = timeSource != null;
+        this.expiryWheel = null;
+        this.dueKeys = null;
+        this.expiring = false;
+        this.nodesT0 = null;
+        this.nodesT1 = null;
+        this.stashNodes = null;
+        this.accessSampleRate = 0;
+        this.accessSampleSeed = 0x7F4A7C15;
+        this.accessSlots = null;
+        this.accessKeys = null;
+        this.accessTimes = null;
+        this.accessCount = 0;
+        this.maximumSize = 0;
+        this.frequencySketch = null;
+        this.evictionSeed = 0x3C6EF372;
+        this.weigher = null;
+        this.maximumWeight = 0;
+        this.totalWeight = 0;
         this.isResizing = false;
+        this.incrementalResize = false;
+        this.resizeTarget = null;
+        this.migrationIndex = 0;
+        this.bfsInsertion = false;
+        this.strictLookup = false;
+        this.stashCapacity = 0;
+        this.stashCount = 0;
+        this.hashStrategy = null;
+        this.hashSeed = 0x2545F4914F6CDD1DL;
+        this.rehashes = 0;
+    }
+
+    public ForgettingCuckooHashTable(int primeIndex, int bucketSize, float maxLoadFactor, boolean powerOfTwoSizes)
+    {
+        this(primeIndex, bucketSize, maxLoadFactor, powerOfTwoSizes, null, DEFAULT_FORGETTING_WINDOW);
+    }
+
+    public ForgettingCuckooHashTable(int primeIndex, TimeSource timeSource, long forgettingWindowMillis)
+    {
+        this(primeIndex, 1, 0.5f, false, timeSource, forgettingWindowMillis);
+    }
+
+    public ForgettingCuckooHashTable(int primeIndex, int bucketSize, float maxLoadFactor)
+    {
+        this(primeIndex, bucketSize, maxLoadFactor, false);
+    }
+
+    public ForgettingCuckooHashTable(int primeIndex)
+    {
+        this(primeIndex, 1, 0.5f);
     }
 
     public ForgettingCuckooHashTable()
@@ -72,21 +254,65 @@ public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Va
         this(0);
     }
 
+    //número de posições de T0 para o índice dado; como T1 é sempre maior, uma tabela criada com esse índice
+    //guarda esse número de chaves sem redimensionar, com o fator de carga máximo por omissão
+    public static int getTableSize(int primeIndex)
+    {
+        return CuckooPrimes.primesTable0[primeIndex];
+    }
+
     private int h0(Key k) {
+        if(this.powerOfTwoSizes)
+            return (int) ((hashT0(k) & 0xffffffffL) * MULTIPLIER_T0 >>> this.shiftT0);
+        if(this.hashStrategy != null)
+            return (this.hashStrategy.hash(k, 0, this.hashSeed) & 0x7fffffff) % this.mT0;
         return ((k.hashCode() & 0x7fffffff)) % this.mT0;
     }
     
     private int h1(Key k) {
+        if(this.powerOfTwoSizes)
+            return (int) ((hashT1(k) & 0xffffffffL) * MULTIPLIER_T1 >>> this.shiftT1);
+        if(this.hashStrategy != null)
+            return (this.hashStrategy.hash(k, 1, this.hashSeed) & 0x7fffffff) % this.mT1;
         int hash = k.hashCode() & 0x7fffffff;
         int prime1 = 31;
         int prime2 = 37; 
         return ((hash % this.mT1) * prime1 + (hash % this.mT1) * prime2) % this.mT1;
     }
+
+    private int hashT0(Key k)
+    {
+        return (this.hashStrategy != null) ? this.hashStrategy.hash(k, 0, this.hashSeed) : k.hashCode();
+    }
+
+    private int hashT1(Key k)
+    {
+        return (this.hashStrategy != null) ? this.hashStrategy.hash(k, 1, this.hashSeed) : k.hashCode();
+    }
+
+    //posição seguinte na sondagem linear de T0
+    private int nextT0(int i)
+    {
+        return this.powerOfTwoSizes ? (i + 1) & (this.mT0 - 1) : (i + 1) % this.mT0;
+    }
+
+    //posição seguinte na sondagem linear de T1
+    private int nextT1(int i)
+    {
+        return this.powerOfTwoSizes ? (i + 1) & (this.mT1 - 1) : (i + 1) % this.mT1;
+    }
+
+    public boolean isPowerOfTwoSizes()
+    {
+        return this.powerOfTwoSizes;
+    }
     
 
     public int size()
     {
-        return this.sizeT0 + this.sizeT1;
+        if(this.resizeTarget != null)
+            return this.sizeT0 + this.sizeT1 + this.stashCount + this.resizeTarget.size();
+        return this.sizeT0 + this.sizeT1 + this.stashCount;
     }
 
     @Override
@@ -94,9 +320,30 @@ public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Va
         return size() == 0;
     }
 
+    //número total de posições, contando todas as posições de cada bucket
     public int getCapacity()
     {
-        return this.mT0 + this.mT1;
+        if(this.resizeTarget != null)
+            return this.resizeTarget.getCapacity();
+        return (this.mT0 + this.mT1) * this.bucketSize;
+    }
+
+    public int getBucketSize()
+    {
+        return this.bucketSize;
+    }
+
+    public float getMaxLoadFactor()
+    {
+        return this.maxLoadFactor;
+    }
+
+    //soma dos pesos das chaves; sem Weigher cada chave pesa 1
+    public long getTotalWeight()
+    {
+        if(this.weigher == null)
+            return size();
+        return this.totalWeight;
     }
 
     public float getLoadFactor()
@@ -105,8 +352,14 @@ public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Va
     }
 
     public boolean containsKey(Key k) {
+        if(this.resizeTarget != null)
+            return indexOfT0(k) >= 0 || indexOfT1(k) >= 0 || this.resizeTarget.containsKey(k);
+
+        if(this.bucketSize > 1 || this.strictLookup)
+            return findInBucket(this.keysT0, h0(k), k) >= 0 || findInBucket(this.keysT1, h1(k), k) >= 0 || indexInStash(k) >= 0;
+
         int countT0 = 0;
-        for (int i = h0(k); this.keysT0[i] != null; i = (i + 1) % this.mT0) {
+        for (int i = h0(k); this.keysT0[i] != null; i = nextT0(i)) {
             if (k.equals(keysT0[i]))
                 return true;
             if(countT0 >= this.mT0)
@@ -115,284 +368,2374 @@ public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Va
         }
     
         int countT1 = 0;
-        for (int i = h1(k); this.keysT1[i] != null; i = (i + 1) % this.mT1) {
+        for (int i = h1(k); this.keysT1[i] != null; i = nextT1(i)) {
             if (k.equals(keysT1[i]))
                 return true;
             if(countT1 >= this.mT1)
                 break;
             countT1++;
         }
-        return false;
+        return indexInStash(k) >= 0;
     }
 
     public Value get(Key k)
     {
+        Value v = lookup(k);
+        if(this.countOperations)
+        {
+            this.counters.gets.increment();
+            if(v != null)
+                this.counters.hits.increment();
+        }
+        return v;
+    }
+
+    private Value lookup(Key k)
+    {
+        startOperation();
+        if(this.frequencySketch != null)
+            this.frequencySketch.increment(k);
+        if(this.resizeTarget != null)
+        {
+            migrateStep();
+            if(this.resizeTarget != null)
+                return getDuringMigration(k);
+        }
+
+        if(this.bucketSize > 1 || this.strictLookup)
+            return getBucketized(k);
+
         int countT0 = 0;
-        for(int i = h0(k); this.keysT0[i] != null; i = (i+1) % this.mT0)
+        for(int i = h0(k); this.keysT0[i] != null; i = nextT0(i))
         {
-            if(!this.isResizing)
+            if(!this.isResizing && this.accessSlots == null)
                 this.timestampsT0[i] = this.currentTimeMillis;
             if(this.keysT0[i].equals(k))
+            {
+                if(this.accessSlots != null)
+                    bufferAccess(i, this.keysT0[i]);
                 return this.valuesT0[i];
+            }
             if(countT0 >= this.mT0)
                 break;
             countT0++;
         }
 
         int countT1 = 0;
-        for(int i = h1(k); this.keysT1[i] != null; i = (i+1) % this.mT1)
+        for(int i = h1(k); this.keysT1[i] != null; i = nextT1(i))
         {
-            if(!this.isResizing)
+            if(!this.isResizing && this.accessSlots == null)
                 this.timestampsT1[i] = this.currentTimeMillis;
             if(this.keysT1[i].equals(k))
+            {
+                if(this.accessSlots != null)
+                    bufferAccess(~i, this.keysT1[i]);
                 return this.valuesT1[i];
+            }
             if(countT1 >= this.mT1)
                 break;
             countT1++;
         }
-        return null;
+        return getFromStash(k);
     }
 
     private void resize(int primeIndex)
     {
-        if(primeIndex < 0 || primeIndex >= primesTable0.length || primeIndex >= primesTable1.length) return;
-
-        this.primeIndex = primeIndex;
-        this.isResizing = true;
+        resize(primeIndex, this.hashSeed);
+    }
 
-        ForgettingCuckooHashTable<Key,Value> aux = new ForgettingCuckooHashTable<Key,Value>(this.primeIndex);
+    //reconstrói a tabela com o tamanho indicado; as chaves são colocadas com as funções de hash da semente dada
+    private void resize(int primeIndex, long hashSeed)
+    {
+        if(primeIndex < 0 || primeIndex >= CuckooPrimes.primesTable0.length || primeIndex >= CuckooPrimes.primesTable1.length) return;
+        this.modCount++;
 
-        for(int i = 0; i < this.mT0; i++)
+        if(this.incrementalResize && !this.isResizing && this.maximumSize == 0 && this.weigher == null)
         {
-            if(keysT0[i] != null) aux.put(keysT0[i], valuesT0[i]);
+            if(this.resizeTarget == null)
+            {
+                countResize(primeIndex);
+                startMigration(primeIndex, hashSeed);
+            }
+            return;
         }
 
-        for(int i = 0; i < this.mT1; i++)
+        long start = System.nanoTime();
+        countResize(primeIndex);
+        boolean wasResizing = this.isResizing;
+        int oldPrimeIndex = this.primeIndex;
+        CuckooResizeEvent event = new CuckooResizeEvent();
+        event.begin();
+        if(primeIndex != this.primeIndex)
+            this.rehashes = 0;
+        this.primeIndex = primeIndex;
+        this.isResizing = true;
+
+        ForgettingCuckooHashTable<Key,Value> aux = new ForgettingCuckooHashTable<Key,Value>(this.primeIndex, this.bucketSize, this.maxLoadFactor, this.powerOfTwoSizes,
+                this.timeSource, this.forgettingWindowMillis);
+        aux.setStashCapacity(this.stashCapacity);
+        aux.hashStrategy = this.hashStrategy;
+        aux.counters = this.counters;
+        aux.countOperations = false;
+        aux.strictLookup = this.strictLookup;
+        aux.hashSeed = hashSeed;
+        aux.rehashes = this.rehashes;
+        aux.timeOffsetMillis = this.timeOffsetMillis;
+        if(this.expiryWheel != null)
+            aux.attachExpiryWheel(this.expiryWheel);
+        //a tabela auxiliar não pode esquecer chaves enquanto recebe as chaves desta tabela
+        aux.isResizing = true;
+
+        //com buckets os timestamps acompanham as chaves, e por isso cada chave leva o seu timestamp para a nova tabela
+        if(this.bucketSize > 1)
+            resizeBucketized(aux);
+        else
+            resizeByIndex(aux);
+
+        //as chaves do stash voltam a ser inseridas nas novas tabelas
+        for(int i = 0; i < this.stashCount; i++)
         {
-            if(keysT1[i] != null) aux.put(keysT1[i], valuesT1[i]);
-        }
-        
-        for (int i = 0; i < this.mT0; i++) {
-            if (i < aux.mT0) {
-                aux.timestampsT0[i] = this.timestampsT0[i];
-            }
-        }
-    
-        for (int i = 0; i < this.mT1; i++) {
-            if (i < aux.mT1) {
-                aux.timestampsT1[i] = this.timestampsT1[i];
-            }
+            aux.putWithTimestamp(this.stashKeys[i], this.stashValues[i], this.stashTimestamps[i], stashNodeAt(i));
         }
 
-        this.isResizing = false;
+        this.isResizing = wasResizing;
         this.keysT0 = aux.keysT0;
         this.keysT1 = aux.keysT1;
+        this.tagsT0 = aux.tagsT0;
+        this.tagsT1 = aux.tagsT1;
         this.valuesT0 = aux.valuesT0;
         this.valuesT1 = aux.valuesT1;
         this.timestampsT0 = aux.timestampsT0;
         this.timestampsT1 = aux.timestampsT1;
         this.mT0 = aux.mT0;
         this.mT1 = aux.mT1;
+        this.shiftT0 = aux.shiftT0;
+        this.shiftT1 = aux.shiftT1;
+        this.sizeT0 = aux.sizeT0;
+        this.sizeT1 = aux.sizeT1;
+        this.stashKeys = aux.stashKeys;
+        this.stashValues = aux.stashValues;
+        this.stashTimestamps = aux.stashTimestamps;
+        this.stashCount = aux.stashCount;
+        this.nodesT0 = aux.nodesT0;
+        this.nodesT1 = aux.nodesT1;
+        this.stashNodes = aux.stashNodes;
         this.advanceTimeStatus = aux.advanceTimeStatus;
-      
+        //a tabela auxiliar pode ter mudado de semente (ou de tamanho) se alguma inserção falhou durante o resize
+        this.primeIndex = aux.primeIndex;
+        this.hashSeed = aux.hashSeed;
+        this.rehashes = aux.rehashes;
+        //um resize feito dentro de outro já está contado no tempo (e no evento) do primeiro
+        if(!wasResizing)
+        {
+            this.counters.resizeNanos.add(System.nanoTime() - start);
+            reportResize(event, oldPrimeIndex, false);
+        }
     }
 
-    public void put(Key k, Value v)
+    private void reportResize(CuckooResizeEvent event, int oldPrimeIndex, boolean incremental)
     {
-        if(k == null) throw new IllegalArgumentException();
-
-        if(v == null)
-        {
-            delete(k);
+        reportForgotten(0, 0);
+        event.end();
+        if(!event.shouldCommit())
             return;
-        }
+        event.oldPrimeIndex = oldPrimeIndex;
+        event.newPrimeIndex = this.primeIndex;
+        event.entriesMoved = size();
+        event.incremental = incremental;
+        event.commit();
+    }
 
-        if(containsKey(k))
-        {
-            updateValue(k,v);
+    //as cadeias que chegam a longKickChainThreshold trocas geram um evento CuckooLongKickChain; as inserções
+    //feitas pelos resizes e pelas migrações não são reportadas
+    public void setLongKickChainThreshold(int threshold)
+    {
+        if(threshold < 1) throw new IllegalArgumentException();
+        this.longKickChainThreshold = threshold;
+        if(this.resizeTarget != null)
+            this.resizeTarget.longKickChainThreshold = threshold;
+    }
+
+    public int getLongKickChainThreshold()
+    {
+        return this.longKickChainThreshold;
+    }
+
+    private void reportKickChain(int swaps, boolean failed)
+    {
+        if(swaps < this.longKickChainThreshold || this.isResizing)
             return;
-        }
+        CuckooLongKickChainEvent event = new CuckooLongKickChainEvent();
+        if(!event.isEnabled())
+            return;
+        event.swaps = swaps;
+        event.failed = failed;
+        event.primeIndex = this.primeIndex;
+        event.bucketSize = this.bucketSize;
+        event.commit();
+    }
 
-        if(getLoadFactor() >= 0.5f)
-            resize(this.primeIndex+1);
+    //emite um evento CuckooForget com as chaves esquecidas nas inserções desde o último evento, e com as chaves
+    //tratadas por um avanço da roda de expiração
+    private void reportForgotten(int expiredByWheel, int rescheduledByWheel)
+    {
+        int forgotten = this.forgottenSinceEvent;
+        this.forgottenSinceEvent = 0;
+        if(forgotten == 0 && expiredByWheel == 0 && rescheduledByWheel == 0)
+            return;
+        CuckooForgetEvent event = new CuckooForgetEvent();
+        if(!event.isEnabled())
+            return;
+        event.forgottenOnCollision = forgotten;
+        event.expiredByWheel = expiredByWheel;
+        event.rescheduledByWheel = rescheduledByWheel;
+        event.commit();
+    }
 
-        int currentTable = 0;
-        int swaps = 0;
-        int maxSwaps = 1000;
+    private void countResize(int primeIndex)
+    {
+        if(primeIndex > this.primeIndex)
+            this.counters.resizesUp.increment();
+        else if(primeIndex < this.primeIndex)
+            this.counters.resizesDown.increment();
+        else
+            this.counters.rehashes.increment();
+    }
 
-        while(swaps < maxSwaps) {
-            int index = (currentTable == 0) ? h0(k) : h1(k);
-            Key tempKey = (currentTable == 0) ? keysT0[index] : keysT1[index];
-            Value tempValue = (currentTable == 0) ? valuesT0[index] : valuesT1[index];
+    //modo original: as chaves são inseridas de novo e os timestamps são copiados posição a posição
+    private void resizeByIndex(ForgettingCuckooHashTable<Key,Value> aux)
+    {
+        for(int i = 0; i < this.keysT0.length; i++)
+        {
+            if(keysT0[i] != null) aux.insertMoved(keysT0[i], valuesT0[i], nodeAt(0, i));
+        }
 
-            if (tempKey != null) {
-                if(checkSameHashCode(k))
-                    throw new IllegalArgumentException();
-                if(currentTable == 0)
-                {
-                    if(isKeyExpired(currentTable, index) && this.advanceTimeStatus && !this.isResizing)
-                    {
-                        delete(tempKey);
-                        this.keysT0[index] = k;
-                        this.valuesT0[index] = v;
-                        this.sizeT0++;
-                        break;
-                    }
-                    this.keysT0[index] = k;
-                    this.valuesT0[index] = v;
-                    k = tempKey;
-                    v = tempValue;
-                    currentTable = 1;
-                }
-                else
-                {
-                    if(isKeyExpired(currentTable, index) && this.advanceTimeStatus && !this.isResizing)
-                    {
-                        delete(tempKey);
-                        this.keysT1[index] = k;
-                        this.valuesT1[index] = v;
-                        this.sizeT1++;
-                        break;
-                    }
-                    this.keysT1[index] = k;
-                    this.valuesT1[index] = v;
-                    k = tempKey;
-                    v = tempValue;
-                    currentTable = 0;
-                }
-                
+        for(int i = 0; i < this.keysT1.length; i++)
+        {
+            if(keysT1[i] != null) aux.insertMoved(keysT1[i], valuesT1[i], nodeAt(1, i));
+        }
+        
+        for (int i = 0; i < this.keysT0.length; i++) {
+            if (i < aux.keysT0.length) {
+                aux.timestampsT0[i] = this.timestampsT0[i];
             }
-            else
-            {
-                insertTable(k, v, currentTable);
-                break;
+        }
+    
+        for (int i = 0; i < this.keysT1.length; i++) {
+            if (i < aux.keysT1.length) {
+                aux.timestampsT1[i] = this.timestampsT1[i];
             }
-            
-            swaps++;
         }
-        if(swaps >= maxSwaps)
+    }
+
+    private void resizeBucketized(ForgettingCuckooHashTable<Key,Value> aux)
+    {
+        for(int i = 0; i < this.keysT0.length; i++)
         {
-            resize(this.primeIndex + 1);
-            put(k, v);
-            return;
+            if(this.keysT0[i] != null) aux.putWithTimestamp(this.keysT0[i], this.valuesT0[i], this.timestampsT0[i], nodeAt(0, i));
         }
-        if(this.swapLogging)
+        for(int i = 0; i < this.keysT1.length; i++)
         {
-            this.swapCounts.add(swaps);
+            if(this.keysT1[i] != null) aux.putWithTimestamp(this.keysT1[i], this.valuesT1[i], this.timestampsT1[i], nodeAt(1, i));
         }
     }
 
-    private boolean isKeyExpired(int currentTable, int index) {
-        long timeStamp = (currentTable == 0) ? timestampsT0[index] : timestampsT1[index];
-        long expirationTime = 24 * 3600000; 
-    
-        return this.currentTimeMillis - timeStamp > expirationTime;
-    }
-    
-    private void insertTable(Key currentKey, Value currentValue, int currentTable)
+    //chamado quando a inserção de uma chave falha: com uma HashStrategy tenta primeiro uma nova semente,
+    //mantendo a capacidade, e só cresce quando já falharam MAX_REHASHES sementes com este tamanho
+    private void handleInsertFailure()
     {
-        int index = (currentTable == 0) ? h0(currentKey) : h1(currentKey);
-        
-        if(currentTable == 0)
-        {
-            this.keysT0[index] = currentKey;
-            this.valuesT0[index] = currentValue;
-            this.sizeT0++;
-        }
-        else
+        this.counters.insertFailures.increment();
+        if(this.hashStrategy != null && this.rehashes < MAX_REHASHES)
         {
-            this.keysT1[index] = currentKey;
-            this.valuesT1[index] = currentValue;
-            this.sizeT1++; 
+            this.rehashes++;
+            resize(this.primeIndex, nextHashSeed(this.hashSeed));
+            return;
         }
+        resize(this.primeIndex + 1);
     }
-    
-    private boolean checkSameHashCode(Key currentKey) {
-        int hashCode = currentKey.hashCode();
-        
-        if (keysT0[h0(currentKey)] != null && keysT1[h1(currentKey)] != null) {
-            int hashCodeT0 = keysT0[h0(currentKey)].hashCode();
-            int hashCodeT1 = keysT1[h1(currentKey)].hashCode();
-            return hashCode == hashCodeT0 && hashCode == hashCodeT1;
-        }
-        
-        return false;
+
+    //splitmix64: cada semente nova é uma mistura da anterior
+    private static long nextHashSeed(long seed)
+    {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
-    
-    public void updateValue(Key k, Value v)
+
+    //escolhe a família de funções de hash da tabela (null volta às funções originais) e reconstrói a tabela
+    //com a mesma capacidade, para que todas as chaves fiquem nas posições dadas pelas novas funções
+    public void setHashStrategy(HashStrategy<? super Key> hashStrategy)
     {
-        int index = 0;
-        for(int i = h0(k); keysT0[i] != null; i = (i + 1) % mT0)
+        boolean incremental = this.incrementalResize;
+        setIncrementalResize(false);
+        this.hashStrategy = hashStrategy;
+        this.rehashes = 0;
+        resize(this.primeIndex);
+        this.incrementalResize = incremental;
+    }
+
+    public HashStrategy<? super Key> getHashStrategy()
+    {
+        return this.hashStrategy;
+    }
+
+    public void put(Key k, Value v)
+    {
+        if(k == null) throw new IllegalArgumentException();
+        startOperation();
+
+        if(v == null)
         {
-            if(k.equals(keysT0[i]))
-            {
-                index = 1;
-                break;
-            }
-            else
-                index = -1;
+            delete(k);
+            return;
         }
 
-        if(index == 1)
+        if(this.countOperations)
+            this.counters.puts.increment();
+        if(beginWrite(k))
         {
-            int indexT0 = h0(k);
-            valuesT0[indexT0] = v;
-            if(!this.isResizing)
-                this.timestampsT0[indexT0] = this.currentTimeMillis;
+            putDuringMigration(k, v);
+            return;
         }
+
+        //uma só passagem pelas posições da chave: se ela existir troca-se o valor no sítio, senão é inserida
+        int slot = locate(k);
+        if(slot != NO_SLOT)
+            storeValue(k, slot, v);
         else
-        {
-            int indexT1 = h1(k);
-            valuesT1[indexT1] = v;
-            if(!this.isResizing)
-                this.timestampsT1[indexT1] = this.currentTimeMillis;
-        }
+            insertAbsent(k, v);
     }
 
-    public void delete(Key k)
+    //insere a chave só se ela não existir; devolve o valor que já existia, ou null se a chave foi inserida
+    public Value putIfAbsent(Key k, Value v)
     {
-        int iT0 = h0(k);
-        int iT1 = h1(k);
-        int currentTable = 0;
-        while(true)
+        if(k == null || v == null) throw new IllegalArgumentException();
+        startOperation();
+
+        if(this.countOperations)
+            this.counters.puts.increment();
+        if(beginWrite(k))
         {
-            if(this.keysT0[iT0] == null && this.keysT1[iT1] == null) return;
+            Value old = peekValue(k);
+            if(old == null)
+                putDuringMigration(k, v);
+            return old;
+        }
 
-            if(this.keysT0[iT0] != null) 
-            {
-                if(this.keysT0[iT0].equals(k))
+        int slot = locate(k);
+        if(slot != NO_SLOT)
+        {
+            recordAccess(slot);
+            return valueAt(slot);
+        }
+        insertAbsent(k, v);
+        return null;
+    }
+
+    //troca o valor só se a chave existir; devolve o valor antigo, ou null se a chave não existir
+    public Value replace(Key k, Value v)
+    {
+        if(k == null || v == null) throw new IllegalArgumentException();
+        startOperation();
+
+        if(this.countOperations)
+            this.counters.puts.increment();
+        if(beginWrite(k))
+        {
+            Value old = peekValue(k);
+            if(old != null)
+                putDuringMigration(k, v);
+            return old;
+        }
+
+        int slot = locate(k);
+        if(slot == NO_SLOT)
+            return null;
+        Value old = valueAt(slot);
+        storeValue(k, slot, v);
+        return old;
+    }
+
+    //calcula o novo valor a partir do valor atual (null se a chave não existir); se o novo valor for null a chave
+    //é removida. Devolve o novo valor. Tal como no HashMap, a função não pode alterar a tabela: a posição da chave
+    //já foi procurada, e por isso uma alteração feita pela função dá ConcurrentModificationException
+    public Value compute(Key k, BiFunction<? super Key, ? super Value, ? extends Value> remapping)
+    {
+        if(k == null || remapping == null) throw new IllegalArgumentException();
+        startOperation();
+
+        if(this.countOperations)
+            this.counters.puts.increment();
+        if(beginWrite(k))
+        {
+            int modifications = modifications();
+            Value v = remapping.apply(k, peekValue(k));
+            if(modifications() != modifications)
+                throw new ConcurrentModificationException();
+            if(v == null)
+                delete(k);
+            else
+                putDuringMigration(k, v);
+            return v;
+        }
+
+        int slot = locate(k);
+        int modifications = this.modCount;
+        Value v = remapping.apply(k, (slot != NO_SLOT) ? valueAt(slot) : null);
+        if(this.modCount != modifications)
+            throw new ConcurrentModificationException();
+        if(v == null)
+        {
+            if(slot != NO_SLOT)
+            {
+                if(this.countOperations)
+                    this.counters.deletes.increment();
+                removeEntry(k, slot);
+            }
+        }
+        else if(slot != NO_SLOT)
+            storeValue(k, slot, v);
+        else
+            insertAbsent(k, v);
+        return v;
+    }
+
+    //se a chave não existir, insere o valor calculado (a não ser que seja null); devolve o valor associado à chave
+    public Value computeIfAbsent(Key k, Function<? super Key, ? extends Value> mapping)
+    {
+        if(k == null || mapping == null) throw new IllegalArgumentException();
+        startOperation();
+
+        if(this.countOperations)
+            this.counters.puts.increment();
+        if(beginWrite(k))
+        {
+            Value old = peekValue(k);
+            if(old != null)
+                return old;
+            int modifications = modifications();
+            Value v = mapping.apply(k);
+            if(modifications() != modifications)
+                throw new ConcurrentModificationException();
+            if(v != null)
+                putDuringMigration(k, v);
+            return v;
+        }
+
+        int slot = locate(k);
+        if(slot != NO_SLOT)
+        {
+            recordAccess(slot);
+            return valueAt(slot);
+        }
+        int modifications = this.modCount;
+        Value v = mapping.apply(k);
+        if(this.modCount != modifications)
+            throw new ConcurrentModificationException();
+        if(v != null)
+            insertAbsent(k, v);
+        return v;
+    }
+
+    //se a chave não existir fica com o valor dado, senão com remapping(valor atual, valor dado); um resultado null
+    //remove a chave. Devolve o novo valor
+    public Value merge(Key k, Value v, BiFunction<? super Value, ? super Value, ? extends Value> remapping)
+    {
+        if(k == null || v == null || remapping == null) throw new IllegalArgumentException();
+        return compute(k, (key, old) -> (old == null) ? v : remapping.apply(old, v));
+    }
+
+    public Value getOrDefault(Key k, Value defaultValue)
+    {
+        Value v = get(k);
+        return (v == null) ? defaultValue : v;
+    }
+
+    //alterações desta tabela e, durante a migração, também da nova tabela
+    private int modifications()
+    {
+        if(this.resizeTarget != null)
+            return this.modCount + this.resizeTarget.modifications();
+        return this.modCount;
+    }
+
+    //o que todas as escritas fazem antes de procurar a chave. Devolve true se a tabela ainda estiver a migrar,
+    //e nesse caso a escrita é feita pelos métodos da migração
+    private boolean beginWrite(Key k)
+    {
+        drainAccesses();
+        if(this.frequencySketch != null)
+            this.frequencySketch.increment(k);
+
+        if(this.resizeTarget != null)
+            migrateStep();
+        return this.resizeTarget != null;
+    }
+
+    //posição da chave, procurada uma só vez em cada sítio onde ela pode estar: i para T0, ~i para T1,
+    //e ~(keysT1.length + i) para a posição i do stash. Devolve NO_SLOT se a chave não estiver na tabela
+    private int locate(Key k)
+    {
+        int i = indexOfT0(k);
+        if(i >= 0)
+            return i;
+        i = indexOfT1(k);
+        if(i >= 0)
+            return ~i;
+        i = indexInStash(k);
+        if(i >= 0)
+            return ~(this.keysT1.length + i);
+        return NO_SLOT;
+    }
+
+    private Value valueAt(int slot)
+    {
+        if(slot >= 0)
+            return this.valuesT0[slot];
+        if(~slot < this.keysT1.length)
+            return this.valuesT1[~slot];
+        return this.stashValues[~slot - this.keysT1.length];
+    }
+
+    //troca o valor da chave que está na posição dada (como o updateValue), e aplica o limite de peso
+    private void storeValue(Key k, int slot, Value v)
+    {
+        if(this.weigher != null)
+            this.totalWeight += weigh(k, v) - weigh(k, valueAt(slot));
+        if(!this.isResizing)
+            this.counters.updates.increment();
+        if(this.expiryWheel != null)
+            endTtl(nodeAtSlot(slot));
+
+        if(slot >= 0)
+        {
+            this.valuesT0[slot] = v;
+            if(!this.isResizing)
+                this.timestampsT0[slot] = this.currentTimeMillis;
+        }
+        else if(~slot < this.keysT1.length)
+        {
+            this.valuesT1[~slot] = v;
+            if(!this.isResizing)
+                this.timestampsT1[~slot] = this.currentTimeMillis;
+        }
+        else
+        {
+            this.stashValues[~slot - this.keysT1.length] = v;
+            if(!this.isResizing)
+                this.stashTimestamps[~slot - this.keysT1.length] = this.currentTimeMillis;
+        }
+
+        if(this.weigher != null && this.totalWeight > this.maximumWeight)
+            evictByWeight(k);
+    }
+
+    //uma leitura feita por uma escrita que não mudou o valor conta como um get
+    private void recordAccess(int slot)
+    {
+        if(slot >= 0 && this.accessSlots != null)
+            bufferAccess(slot, this.keysT0[slot]);
+        else if(~slot < this.keysT1.length && this.accessSlots != null)
+            bufferAccess(slot, this.keysT1[~slot]);
+        else if(this.isResizing)
+            return;
+        else if(slot >= 0)
+            this.timestampsT0[slot] = this.currentTimeMillis;
+        else if(~slot < this.keysT1.length)
+            this.timestampsT1[~slot] = this.currentTimeMillis;
+        else
+            this.stashTimestamps[~slot - this.keysT1.length] = this.currentTimeMillis;
+    }
+
+    //remove a chave que está na posição dada (como em locate), sem a procurar outra vez e sem contar a operação
+    private void removeEntry(Key k, int slot)
+    {
+        this.modCount++;
+        if(this.weigher != null)
+            this.totalWeight -= weigh(k, valueAt(slot));
+
+        if(slot >= 0 || ~slot < this.keysT1.length)
+        {
+            int currentTable = (slot >= 0) ? 0 : 1;
+            int index = (slot >= 0) ? slot : ~slot;
+            removeNode(currentTable, index);
+            removeSlot(currentTable, index);
+        }
+        else
+        {
+            int i = ~slot - this.keysT1.length;
+            cancelNode(stashNodeAt(i));
+            removeFromStash(i);
+            return;
+        }
+        //durante a migração a tabela antiga só perde chaves, tal como no deleteDuringMigration
+        if(this.resizeTarget != null)
+            return;
+        reinsertStash();
+        shrinkAfterDelete();
+    }
+
+    //depois de remover uma chave, a tabela diminui se tiver ficado demasiado vazia
+    private void shrinkAfterDelete()
+    {
+        if(this.bucketSize > 1 || this.strictLookup)
+        {
+            if(getLoadFactor() < this.maxLoadFactor / 4)
+                resize(this.primeIndex-1);
+        }
+        else if(getLoadFactor() < 0.125f && (getCapacity() > CuckooPrimes.primesTable0[0] && getCapacity() > CuckooPrimes.primesTable1[0]))
+            resize(this.primeIndex-1);
+    }
+
+    //insere uma chave que não está na tabela, e aplica os limites de tamanho e de peso
+    private void insertAbsent(Key k, Value v)
+    {
+        if(this.weigher != null)
+            this.totalWeight += weigh(k, v);
+        putNew(k, v, (this.expiryWheel != null) ? scheduleNode(k, this.currentTimeMillis) : null);
+        if(this.maximumSize > 0 && size() > this.maximumSize)
+            evictOrReject(k);
+        if(this.weigher != null && this.totalWeight > this.maximumWeight)
+            evictByWeight(k);
+    }
+
+    //volta a inserir a chave que ficou sem lugar depois de uma inserção falhada; a chave já foi contada
+    private void putEntry(Key k, Value v, TimingWheel.Node<Key> node)
+    {
+        if(this.resizeTarget != null)
+        {
+            migrateStep();
+            if(this.resizeTarget != null)
+            {
+                //a chave ficou sem lugar, por isso não está na tabela antiga
+                putInResizeTarget(k, v, node);
+                return;
+            }
+        }
+        putNew(k, v, node);
+    }
+
+    //insere na tabela nova de uma migração uma chave que não está na tabela antiga
+    private void putInResizeTarget(Key k, Value v, TimingWheel.Node<Key> node)
+    {
+        this.resizeTarget.swapLogging = this.swapLogging;
+        this.resizeTarget.insertMoved(k, v, node);
+    }
+
+    //insere uma chave que vem de outra tabela (num resize ou numa migração), ou que ficou sem lugar,
+    //com a sua entrada na roda temporal
+    private void insertMoved(Key k, Value v, TimingWheel.Node<Key> node)
+    {
+        refreshTime();
+        drainAccesses();
+        putNew(k, v, node);
+    }
+
+    //insere uma chave que ainda não está na tabela; node é a entrada da chave na roda temporal (null sem roda)
+    private void putNew(Key k, Value v, TimingWheel.Node<Key> node)
+    {
+        this.modCount++;
+        if(getLoadFactor() >= this.maxLoadFactor)
+        {
+            resize(this.primeIndex+1);
+            //com o resize incremental a chave vai para a tabela nova, senão ficava na tabela antiga
+            //(ou no seu stash, que a migração já esvaziou) e perdia-se no fim da migração
+            if(this.resizeTarget != null)
+            {
+                putInResizeTarget(k, v, node);
+                return;
+            }
+        }
+
+        if(this.bfsInsertion)
+        {
+            putBfs(k, v, node);
+            return;
+        }
+
+        if(this.bucketSize > 1)
+        {
+            putBucketized(k, v, node);
+            return;
+        }
+
+        int currentTable = 0;
+        int swaps = 0;
+        int maxSwaps = MAX_SWAPS;
+
+        while(swaps < maxSwaps) {
+            int index = (currentTable == 0) ? h0(k) : h1(k);
+            Key tempKey = (currentTable == 0) ? keysT0[index] : keysT1[index];
+            Value tempValue = (currentTable == 0) ? valuesT0[index] : valuesT1[index];
+            TimingWheel.Node<Key> tempNode = nodeAt(currentTable, index);
+
+            if (tempKey != null) {
+                if(checkSameHashCode(k))
+                    throw new IllegalArgumentException();
+                if(currentTable == 0)
+                {
+                    if(isKeyExpired(currentTable, index) && this.advanceTimeStatus && !this.isResizing)
+                    {
+                        //a chave antiga é esquecida e substituída no lugar, sem passar pelo delete,
+                        //que podia redimensionar a tabela a meio da cadeia de trocas
+                        forgetEntry(tempKey, tempValue, tempNode);
+                        this.keysT0[index] = k;
+                        this.valuesT0[index] = v;
+                        setNode(currentTable, index, node);
+                        touchInsertedSlot(currentTable, index);
+                        break;
+                    }
+                    this.keysT0[index] = k;
+                    this.valuesT0[index] = v;
+                    setNode(currentTable, index, node);
+                    k = tempKey;
+                    v = tempValue;
+                    node = tempNode;
+                    currentTable = 1;
+                }
+                else
+                {
+                    if(isKeyExpired(currentTable, index) && this.advanceTimeStatus && !this.isResizing)
+                    {
+                        forgetEntry(tempKey, tempValue, tempNode);
+                        this.keysT1[index] = k;
+                        this.valuesT1[index] = v;
+                        setNode(currentTable, index, node);
+                        touchInsertedSlot(currentTable, index);
+                        break;
+                    }
+                    this.keysT1[index] = k;
+                    this.valuesT1[index] = v;
+                    setNode(currentTable, index, node);
+                    k = tempKey;
+                    v = tempValue;
+                    node = tempNode;
+                    currentTable = 0;
+                }
+                
+            }
+            else
+            {
+                insertTable(k, v, currentTable, node);
+                break;
+            }
+            
+            swaps++;
+        }
+        if(swaps >= maxSwaps)
+        {
+            reportKickChain(swaps, true);
+            if(addToStash(k, v, this.currentTimeMillis, node))
+            {
+                logSwaps(swaps);
+                return;
+            }
+            handleInsertFailure();
+            putEntry(k, v, node);
+            return;
+        }
+        logSwaps(swaps);
+    }
+
+    private boolean isKeyExpired(int currentTable, int index) {
+        long timeStamp = (currentTable == 0) ? timestampsT0[index] : timestampsT1[index];
+    
+        return this.currentTimeMillis - timeStamp > this.forgettingWindowMillis;
+    }
+
+    //lê o relógio uma vez por operação; sem TimeSource o tempo da tabela não muda
+    private void refreshTime()
+    {
+        if(this.timeSource != null)
+            this.currentTimeMillis = this.timeSource.currentTimeMillis() + this.timeOffsetMillis;
+    }
+
+    //início de cada put/get/delete: lê o relógio e apaga as chaves cujo prazo na roda temporal já passou.
+    //Uma chave que foi usada entretanto volta para a roda com o prazo dado pelo seu timestamp atual
+    private void startOperation()
+    {
+        refreshTime();
+        if(this.dueKeys == null || this.expiring)
+            return;
+
+        this.expiring = true;
+        //a roda compara os timestamps atuais das chaves, por isso os acessos em buffer são aplicados antes
+        drainAccesses();
+        this.expiryWheel.advance(this.currentTimeMillis, this.dueKeys);
+        if(this.dueKeys.isEmpty())
+        {
+            this.expiring = false;
+            return;
+        }
+        int expired = 0;
+        for(int i = 0; i < this.dueKeys.size(); i++)
+        {
+            TimingWheel.Node<Key> node = this.dueKeys.get(i);
+            //durante a migração a chave pode já estar na nova tabela
+            ForgettingCuckooHashTable<Key,Value> table = this;
+            int slot = locate(node.key);
+            if(slot == NO_SLOT && this.resizeTarget != null)
+            {
+                table = this.resizeTarget;
+                slot = table.locate(node.key);
+            }
+            if(slot == NO_SLOT)
+                continue;
+            long timestamp = table.timestampAt(slot);
+            if(node.ttl || (this.advanceTimeStatus && this.currentTimeMillis - timestamp > this.forgettingWindowMillis))
+            {
+                //a chave é esquecida sem passar pelo delete, que voltaria a avançar a roda e a contar um delete
+                this.counters.forgotten.increment();
+                table.removeEntry(node.key, slot);
+                expired++;
+            }
+            else if(this.advanceTimeStatus)
+                this.expiryWheel.schedule(node, timestamp + this.forgettingWindowMillis + 1, false);
+            else
+                this.expiryWheel.schedule(node, this.currentTimeMillis + this.forgettingWindowMillis, false);
+        }
+        reportForgotten(expired, this.dueKeys.size() - expired);
+        this.dueKeys.clear();
+        this.expiring = false;
+    }
+
+    //liga o registo dos acessos em buffer, guardando um em cada sampleRate gets; 0 volta a escrever
+    //os timestamps diretamente em cada get
+    public void setBufferedAccessRecording(int sampleRate)
+    {
+        if(sampleRate < 0) throw new IllegalArgumentException();
+
+        drainAccesses();
+        this.accessSampleRate = sampleRate;
+        if(sampleRate == 0)
+        {
+            this.accessSlots = null;
+            this.accessKeys = null;
+            this.accessTimes = null;
+        }
+        else if(this.accessSlots == null)
+        {
+            this.accessSlots = new int[ACCESS_BUFFER_SIZE];
+            this.accessKeys = new Object[ACCESS_BUFFER_SIZE];
+            this.accessTimes = new long[ACCESS_BUFFER_SIZE];
+        }
+        if(this.resizeTarget != null)
+            this.resizeTarget.setBufferedAccessRecording(sampleRate);
+    }
+
+    public int getAccessSampleRate()
+    {
+        return this.accessSampleRate;
+    }
+
+    private void bufferAccess(int slot, Key k)
+    {
+        if(this.isResizing)
+            return;
+        if(this.accessSampleRate > 1)
+        {
+            int x = this.accessSampleSeed;
+            x ^= x << 13;
+            x ^= x >>> 17;
+            x ^= x << 5;
+            this.accessSampleSeed = x;
+            if((x & 0x7fffffff) % this.accessSampleRate != 0)
+                return;
+        }
+
+        if(this.accessCount == ACCESS_BUFFER_SIZE)
+            drainAccesses();
+        this.accessSlots[this.accessCount] = slot;
+        this.accessKeys[this.accessCount] = k;
+        this.accessTimes[this.accessCount] = this.currentTimeMillis;
+        this.accessCount++;
+    }
+
+    //aplica os acessos em buffer aos timestamps; um registo só é aplicado se a mesma chave ainda estiver na posição
+    private void drainAccesses()
+    {
+        for(int j = 0; j < this.accessCount; j++)
+        {
+            int slot = this.accessSlots[j];
+            Key[] keys = (slot >= 0) ? this.keysT0 : this.keysT1;
+            long[] timestamps = (slot >= 0) ? this.timestampsT0 : this.timestampsT1;
+            if(slot < 0)
+                slot = ~slot;
+            if(slot < keys.length && keys[slot] == this.accessKeys[j] && timestamps[slot] < this.accessTimes[j])
+                timestamps[slot] = this.accessTimes[j];
+            this.accessKeys[j] = null;
+        }
+        this.accessCount = 0;
+    }
+
+    //limita o número de chaves da tabela; 0 tira o limite. Se a tabela já tiver mais chaves, as que sobram
+    //são removidas. Com limite, os resizes são sempre feitos de uma só vez, mesmo no modo incremental
+    public void setMaximumSize(int maximumSize)
+    {
+        if(maximumSize < 0) throw new IllegalArgumentException();
+
+        boolean incremental = this.incrementalResize;
+        setIncrementalResize(false);
+        this.incrementalResize = incremental;
+        this.maximumSize = maximumSize;
+        this.frequencySketch = (maximumSize > 0) ? new FrequencySketch(maximumSize) : null;
+        while(maximumSize > 0 && size() > maximumSize)
+        {
+            int slot = findVictim(null);
+            if(slot == NO_SLOT)
+                break;
+            evictEntry(keyAt(slot), slot);
+        }
+    }
+
+    public int getMaximumSize()
+    {
+        return this.maximumSize;
+    }
+
+    //a tabela tem uma chave a mais: a chave nova fica apenas se for mais frequente do que a vítima escolhida,
+    //ou se a vítima já tiver sido esquecida
+    private void evictOrReject(Key candidate)
+    {
+        int slot = findVictim(candidate);
+        if(slot == NO_SLOT)
+        {
+            evictKey(candidate);
+            return;
+        }
+
+        int table = (slot >= 0) ? 0 : 1;
+        int index = (slot >= 0) ? slot : ~slot;
+        Key victim = (table == 0) ? this.keysT0[index] : this.keysT1[index];
+        boolean expired = this.advanceTimeStatus && isKeyExpired(table, index);
+        if(expired || this.frequencySketch.frequency(candidate) > this.frequencySketch.frequency(victim))
+            evictEntry(victim, slot);
+        else
+            evictKey(candidate);
+    }
+
+    //remove uma chave por causa do tamanho ou do peso máximo. Não passa pelo delete: a chave já foi encontrada,
+    //e a remoção conta como uma expulsão e não como um delete
+    private void evictEntry(Key k, int slot)
+    {
+        this.counters.evictions.increment();
+        removeEntry(k, slot);
+    }
+
+    //expulsa a chave acabada de inserir, se ela ainda estiver na tabela
+    private void evictKey(Key k)
+    {
+        int slot = locate(k);
+        if(slot != NO_SLOT)
+            evictEntry(k, slot);
+    }
+
+    //escolhe a vítima: primeiro as posições da chave candidata (null se não houver candidata), depois posições
+    //ao acaso, até ter visto EVICTION_SAMPLES chaves. Devolve i para T0, ~i para T1, ou NO_SLOT
+    private int findVictim(Key candidate)
+    {
+        int best = NO_SLOT;
+        int bestFrequency = Integer.MAX_VALUE;
+        int seen = 0;
+
+        if(candidate != null)
+        {
+            int width = (this.bucketSize > 1) ? this.bucketSize : 1;
+            int start0 = h0(candidate) * width;
+            int start1 = h1(candidate) * width;
+            for(int j = 0; j < 2 * width; j++)
+            {
+                int slot = (j < width) ? start0 + j : ~(start1 + j - width);
+                int result = compareVictim(candidate, slot, best, bestFrequency);
+                if(result == NO_SLOT)
+                    continue;
+                if(result != best && isExpiredSlot(result))
+                    return result;
+                if(result != best)
+                {
+                    best = result;
+                    bestFrequency = this.frequencySketch.frequency(keyAt(result));
+                }
+                seen++;
+            }
+        }
+
+        for(int attempts = 0; seen < EVICTION_SAMPLES && attempts < 4 * EVICTION_SAMPLES; attempts++)
+        {
+            int slot = randomSlot();
+            int result = compareVictim(candidate, slot, best, bestFrequency);
+            if(result == NO_SLOT)
+                continue;
+            if(result != best && isExpiredSlot(result))
+                return result;
+            if(result != best)
+            {
+                best = result;
+                bestFrequency = this.frequencySketch.frequency(keyAt(result));
+            }
+            seen++;
+        }
+        return best;
+    }
+
+    //devolve NO_SLOT se a posição não tiver uma chave que possa ser vítima; caso contrário devolve a posição,
+    //se ela for melhor vítima do que a atual, ou a vítima atual
+    private int compareVictim(Key candidate, int slot, int best, int bestFrequency)
+    {
+        Key k = keyAt(slot);
+        if(k == null || k == candidate || k.equals(candidate))
+            return NO_SLOT;
+        if(best == NO_SLOT || isExpiredSlot(slot) || this.frequencySketch.frequency(k) < bestFrequency)
+            return slot;
+        return best;
+    }
+
+    //uma posição de T0 ou T1 escolhida ao acaso (xorshift): i para T0, ~i para T1
+    private int randomSlot()
+    {
+        int x = this.evictionSeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        this.evictionSeed = x;
+        int r = (x & 0x7fffffff) % (this.keysT0.length + this.keysT1.length);
+        return (r < this.keysT0.length) ? r : ~(r - this.keysT0.length);
+    }
+
+    //limita a soma dos pesos das chaves, calculados pelo weigher; um máximo de 0 tira o limite (e o weigher).
+    //Se a tabela já pesar mais do que o máximo, as chaves que sobram são removidas. Tal como com o tamanho
+    //máximo, os resizes passam a ser feitos de uma só vez
+    public void setMaximumWeight(long maximumWeight, Weigher<? super Key, ? super Value> weigher)
+    {
+        if(maximumWeight < 0 || (maximumWeight > 0 && weigher == null)) throw new IllegalArgumentException();
+
+        boolean incremental = this.incrementalResize;
+        setIncrementalResize(false);
+        this.incrementalResize = incremental;
+        this.maximumWeight = maximumWeight;
+        this.weigher = (maximumWeight > 0) ? weigher : null;
+        this.totalWeight = 0;
+        if(this.weigher == null)
+            return;
+
+        for(Key k : keys())
+        {
+            this.totalWeight += weigh(k, peekValue(k));
+        }
+        if(this.totalWeight > this.maximumWeight)
+            evictByWeight(null);
+    }
+
+    public long getMaximumWeight()
+    {
+        return this.maximumWeight;
+    }
+
+    private long weigh(Key k, Value v)
+    {
+        int weight = this.weigher.weigh(k, v);
+        if(weight < 0) throw new IllegalArgumentException();
+        return weight;
+    }
+
+    //uma chave esquecida no lugar, sem passar pelo delete: é contada nas estatísticas, deixa de contar para o peso total
+    //e sai da roda temporal
+    private void forgetEntry(Key k, Value v, TimingWheel.Node<Key> node)
+    {
+        cancelNode(node);
+        this.counters.forgotten.increment();
+        if(++this.forgottenSinceEvent >= FORGET_EVENT_BATCH)
+            reportForgotten(0, 0);
+        if(this.weigher != null)
+            this.totalWeight -= weigh(k, v);
+    }
+
+    //valor da chave sem atualizar o seu timestamp, ou null se a chave não estiver na tabela
+    private Value peekValue(Key k)
+    {
+        int i = indexOfT0(k);
+        if(i >= 0)
+            return this.valuesT0[i];
+        i = indexOfT1(k);
+        if(i >= 0)
+            return this.valuesT1[i];
+        i = indexInStash(k);
+        if(i >= 0)
+            return this.stashValues[i];
+        if(this.resizeTarget != null)
+            return this.resizeTarget.peekValue(k);
+        return null;
+    }
+
+    //remove chaves até o peso total voltar a caber no máximo. A chave acabada de inserir (newest) só é
+    //removida se não houver outra, o que acontece quando ela sozinha pesa mais do que o máximo
+    private void evictByWeight(Key newest)
+    {
+        while(this.totalWeight > this.maximumWeight)
+        {
+            int slot = findHeavyVictim(newest);
+            if(slot == NO_SLOT && newest != null)
+            {
+                evictKey(newest);
+                break;
+            }
+            if(slot == NO_SLOT)
+                break;
+            evictEntry(keyAt(slot), slot);
+        }
+    }
+
+    //entre EVICTION_SAMPLES chaves escolhidas ao acaso, devolve uma que já tenha sido esquecida ou, se não houver,
+    //a de maior peso * tempo sem uso. Se a amostra não encontrar nenhuma chave, devolve a primeira que existir
+    private int findHeavyVictim(Key newest)
+    {
+        int best = NO_SLOT;
+        double bestScore = -1;
+        int seen = 0;
+        for(int attempts = 0; seen < EVICTION_SAMPLES && attempts < 4 * EVICTION_SAMPLES; attempts++)
+        {
+            int slot = randomSlot();
+            Key k = keyAt(slot);
+            if(k == null || k.equals(newest))
+                continue;
+            if(isExpiredSlot(slot))
+                return slot;
+            long timestamp = (slot >= 0) ? this.timestampsT0[slot] : this.timestampsT1[~slot];
+            Value v = (slot >= 0) ? this.valuesT0[slot] : this.valuesT1[~slot];
+            double score = (double) weigh(k, v) * (Math.max(0, this.currentTimeMillis - timestamp) + 1);
+            if(score > bestScore)
+            {
+                best = slot;
+                bestScore = score;
+            }
+            seen++;
+        }
+        if(best != NO_SLOT)
+            return best;
+
+        for(int i = 0; i < this.keysT0.length + this.keysT1.length; i++)
+        {
+            int slot = (i < this.keysT0.length) ? i : ~(i - this.keysT0.length);
+            Key k = keyAt(slot);
+            if(k != null && !k.equals(newest))
+                return slot;
+        }
+        return NO_SLOT;
+    }
+
+    private Key keyAt(int slot)
+    {
+        return (slot >= 0) ? this.keysT0[slot] : this.keysT1[~slot];
+    }
+
+    private boolean isExpiredSlot(int slot)
+    {
+        if(!this.advanceTimeStatus)
+            return false;
+        return (slot >= 0) ? isKeyExpired(0, slot) : isKeyExpired(1, ~slot);
+    }
+
+    //timestamp da posição dada como em locate
+    private long timestampAt(int slot)
+    {
+        if(slot >= 0)
+            return this.timestampsT0[slot];
+        if(~slot < this.keysT1.length)
+            return this.timestampsT1[~slot];
+        return this.stashTimestamps[~slot - this.keysT1.length];
+    }
+
+    //liga ou desliga a expiração proativa. Ao ligar, todas as chaves da tabela são colocadas na roda temporal
+    public void setExpiryWheel(boolean state)
+    {
+        if(!state)
+        {
+            detachExpiryWheel();
+            this.dueKeys = null;
+            return;
+        }
+        if(this.expiryWheel != null)
+            return;
+
+        this.dueKeys = new ArrayList<TimingWheel.Node<Key>>();
+        attachExpiryWheel(new TimingWheel<Key>(this.currentTimeMillis));
+    }
+
+    //passa a usar a roda dada, criando uma entrada para cada chave que já esteja na tabela (e na tabela da migração)
+    private void attachExpiryWheel(TimingWheel<Key> wheel)
+    {
+        this.expiryWheel = wheel;
+        this.nodesT0 = newNodes(this.keysT0.length);
+        this.nodesT1 = newNodes(this.keysT1.length);
+        this.stashNodes = newNodes(this.stashCapacity);
+        for(int i = 0; i < this.keysT0.length; i++)
+        {
+            if(this.keysT0[i] != null) this.nodesT0[i] = scheduleNode(this.keysT0[i], this.timestampsT0[i]);
+        }
+        for(int i = 0; i < this.keysT1.length; i++)
+        {
+            if(this.keysT1[i] != null) this.nodesT1[i] = scheduleNode(this.keysT1[i], this.timestampsT1[i]);
+        }
+        for(int i = 0; i < this.stashCount; i++)
+        {
+            this.stashNodes[i] = scheduleNode(this.stashKeys[i], this.stashTimestamps[i]);
+        }
+        if(this.resizeTarget != null)
+            this.resizeTarget.attachExpiryWheel(wheel);
+    }
+
+    private void detachExpiryWheel()
+    {
+        this.expiryWheel = null;
+        this.nodesT0 = null;
+        this.nodesT1 = null;
+        this.stashNodes = null;
+        if(this.resizeTarget != null)
+            this.resizeTarget.detachExpiryWheel();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Key> TimingWheel.Node<Key>[] newNodes(int length)
+    {
+        return (TimingWheel.Node<Key>[]) new TimingWheel.Node<?>[length];
+    }
+
+    //cria a entrada de uma chave com o timestamp dado, com o prazo do fim da janela de esquecimento
+    private TimingWheel.Node<Key> scheduleNode(Key k, long timestamp)
+    {
+        TimingWheel.Node<Key> node = new TimingWheel.Node<Key>(k);
+        this.expiryWheel.schedule(node, timestamp + this.forgettingWindowMillis + 1, false);
+        return node;
+    }
+
+    //uma escrita sem ttl numa chave com ttl devolve-a à janela de esquecimento normal
+    private void endTtl(TimingWheel.Node<Key> node)
+    {
+        if(node != null && node.ttl)
+            this.expiryWheel.schedule(node, this.currentTimeMillis + this.forgettingWindowMillis + 1, false);
+    }
+
+    private void cancelNode(TimingWheel.Node<Key> node)
+    {
+        if(node != null)
+            this.expiryWheel.cancel(node);
+    }
+
+    //entrada da posição i de T0 (currentTable 0) ou de T1, ou null sem roda temporal
+    private TimingWheel.Node<Key> nodeAt(int currentTable, int index)
+    {
+        if(this.expiryWheel == null)
+            return null;
+        return (currentTable == 0) ? this.nodesT0[index] : this.nodesT1[index];
+    }
+
+    private void setNode(int currentTable, int index, TimingWheel.Node<Key> node)
+    {
+        if(this.expiryWheel == null)
+            return;
+        if(currentTable == 0)
+            this.nodesT0[index] = node;
+        else
+            this.nodesT1[index] = node;
+    }
+
+    //a chave da posição foi apagada: a sua entrada sai da roda
+    private void removeNode(int currentTable, int index)
+    {
+        cancelNode(nodeAt(currentTable, index));
+        setNode(currentTable, index, null);
+    }
+
+    private TimingWheel.Node<Key> stashNodeAt(int i)
+    {
+        return (this.expiryWheel != null) ? this.stashNodes[i] : null;
+    }
+
+    //entrada da posição dada como em locate (i para T0, ~i para T1, ~(keysT1.length + i) para o stash)
+    private TimingWheel.Node<Key> nodeAtSlot(int slot)
+    {
+        if(slot >= 0)
+            return nodeAt(0, slot);
+        if(~slot < this.keysT1.length)
+            return nodeAt(1, ~slot);
+        return stashNodeAt(~slot - this.keysT1.length);
+    }
+
+    public boolean isExpiryWheelEnabled()
+    {
+        return this.expiryWheel != null;
+    }
+
+    //insere a chave com um tempo de vida próprio: a chave é apagada ttl depois deste put, mesmo que seja usada
+    //entretanto (um put sem ttl da mesma chave volta à janela de esquecimento normal). Como as outras chaves,
+    //pode ser esquecida antes se não for usada durante a janela. Liga a expiração proativa
+    public void put(Key k, Value v, Duration ttl)
+    {
+        if(ttl == null || ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException();
+        setExpiryWheel(true);
+        put(k, v);
+        TimingWheel.Node<Key> node = (v != null) ? nodeOf(k) : null;
+        if(node != null)
+            this.expiryWheel.schedule(node, this.currentTimeMillis + ttl.toMillis(), true);
+    }
+
+    //entrada da chave na roda, ou null se a chave não estiver na tabela
+    private TimingWheel.Node<Key> nodeOf(Key k)
+    {
+        int slot = locate(k);
+        if(slot != NO_SLOT)
+            return nodeAtSlot(slot);
+        return (this.resizeTarget != null) ? this.resizeTarget.nodeOf(k) : null;
+    }
+
+    public long getForgettingWindowMillis()
+    {
+        return this.forgettingWindowMillis;
+    }
+
+    public TimeSource getTimeSource()
+    {
+        return this.timeSource;
+    }
+    
+    private void insertTable(Key currentKey, Value currentValue, int currentTable, TimingWheel.Node<Key> node)
+    {
+        int index = (currentTable == 0) ? h0(currentKey) : h1(currentKey);
+        setNode(currentTable, index, node);
+        
+        if(currentTable == 0)
+        {
+            this.keysT0[index] = currentKey;
+            this.valuesT0[index] = currentValue;
+            this.sizeT0++;
+        }
+        else
+        {
+            this.keysT1[index] = currentKey;
+            this.valuesT1[index] = currentValue;
+            this.sizeT1++; 
+        }
+        touchInsertedSlot(currentTable, index);
+    }
+
+    //com uma TimeSource, uma chave acabada de inserir não pode ficar com o timestamp antigo da posição,
+    //senão seria logo considerada esquecida. Sem TimeSource mantém-se o comportamento original
+    private void touchInsertedSlot(int currentTable, int index)
+    {
+        if(this.timeSource == null || this.isResizing)
+            return;
+        if(currentTable == 0)
+            this.timestampsT0[index] = this.currentTimeMillis;
+        else
+            this.timestampsT1[index] = this.currentTimeMillis;
+    }
+    
+    private boolean checkSameHashCode(Key currentKey) {
+        if (keysT0[h0(currentKey)] != null && keysT1[h1(currentKey)] != null) {
+            return sameHash(currentKey, keysT0[h0(currentKey)]) && sameHash(currentKey, keysT1[h1(currentKey)]);
+        }
+        
+        return false;
+    }
+
+    //duas chaves são indistinguíveis para a tabela se tiverem o mesmo hashcode ou, com uma HashStrategy,
+    //o mesmo hash nas duas funções; nesse caso nenhuma semente nem nenhum tamanho as separa
+    private boolean sameHash(Key a, Key b)
+    {
+        if(this.hashStrategy == null)
+            return a.hashCode() == b.hashCode();
+        return this.hashStrategy.hash(a, 0, this.hashSeed) == this.hashStrategy.hash(b, 0, this.hashSeed)
+                && this.hashStrategy.hash(a, 1, this.hashSeed) == this.hashStrategy.hash(b, 1, this.hashSeed);
+    }
+    
+    public void updateValue(Key k, Value v)
+    {
+        int stashIndex = indexInStash(k);
+        if(stashIndex >= 0)
+        {
+            this.stashValues[stashIndex] = v;
+            if(!this.isResizing)
+                this.stashTimestamps[stashIndex] = this.currentTimeMillis;
+            return;
+        }
+
+        if(this.resizeTarget != null)
+        {
+            if(!updateOldTable(k, v))
+                this.resizeTarget.updateValue(k, v);
+            return;
+        }
+
+        if(this.bucketSize > 1 || this.strictLookup)
+        {
+            updateValueBucketized(k, v);
+            return;
+        }
+
+        int index = 0;
+        for(int i = h0(k); keysT0[i] != null; i = nextT0(i))
+        {
+            if(k.equals(keysT0[i]))
+            {
+                index = 1;
+                break;
+            }
+            else
+                index = -1;
+        }
+
+        if(index == 1)
+        {
+            int indexT0 = h0(k);
+            valuesT0[indexT0] = v;
+            if(!this.isResizing)
+                this.timestampsT0[indexT0] = this.currentTimeMillis;
+        }
+        else
+        {
+            int indexT1 = h1(k);
+            valuesT1[indexT1] = v;
+            if(!this.isResizing)
+                this.timestampsT1[indexT1] = this.currentTimeMillis;
+        }
+    }
+
+    public void delete(Key k)
+    {
+        if(this.countOperations)
+            this.counters.deletes.increment();
+        startOperation();
+        this.modCount++;
+        drainAccesses();
+        if(this.weigher != null)
+        {
+            Value old = peekValue(k);
+            if(old != null)
+                this.totalWeight -= weigh(k, old);
+        }
+        if(this.resizeTarget != null)
+        {
+            migrateStep();
+            if(this.resizeTarget != null)
+            {
+                deleteDuringMigration(k);
+                return;
+            }
+        }
+
+        int stashIndex = indexInStash(k);
+        if(stashIndex >= 0)
+        {
+            cancelNode(stashNodeAt(stashIndex));
+            removeFromStash(stashIndex);
+            return;
+        }
+
+        if(this.bucketSize > 1 || this.strictLookup)
+        {
+            deleteBucketized(k);
+            return;
+        }
+
+        int iT0 = h0(k);
+        int iT1 = h1(k);
+        int currentTable = 0;
+        int count = 0;
+        while(true)
+        {
+            if(this.keysT0[iT0] == null && this.keysT1[iT1] == null) return;
+
+            if(this.keysT0[iT0] != null) 
+            {
+                if(this.keysT0[iT0].equals(k))
                 {
                     currentTable = 0;
                     break;
                 }
             }
-            if(this.keysT1[iT1] != null)
+            if(this.keysT1[iT1] != null)
+            {
+                if(this.keysT1[iT1].equals(k))
+                { 
+                    currentTable = 1;
+                    break;
+                }
+            } 
+
+            //com uma das tabelas cheia a procura nunca encontraria as duas posições vazias ao mesmo tempo
+            if(count >= this.mT0 && count >= this.mT1)
+                return;
+            count++;
+            iT0 = nextT0(iT0);
+            iT1 = nextT1(iT1);
+        }
+        if(currentTable == 0)
+        {
+            removeNode(0, iT0);
+            this.keysT0[iT0] = null;
+            this.valuesT0[iT0] = null;
+            this.sizeT0--;
+        }
+        else
+        {
+            removeNode(1, iT1);
+            this.keysT1[iT1] = null;
+            this.valuesT1[iT1] = null;
+            this.sizeT1--;
+        }
+        reinsertStash();
+        shrinkAfterDelete();
+    }
+
+    //devolve a posição da chave em T0, ou -1 se a chave não estiver em T0
+    private int indexOfT0(Key k)
+    {
+        if(this.bucketSize > 1 || this.strictLookup)
+            return findInBucket(this.keysT0, h0(k), k);
+
+        int count = 0;
+        for(int i = h0(k); this.keysT0[i] != null; i = nextT0(i))
+        {
+            if(k.equals(this.keysT0[i]))
+                return i;
+            if(count >= this.mT0)
+                break;
+            count++;
+        }
+        return -1;
+    }
+
+    //devolve a posição da chave em T1, ou -1 se a chave não estiver em T1
+    private int indexOfT1(Key k)
+    {
+        if(this.bucketSize > 1 || this.strictLookup)
+            return findInBucket(this.keysT1, h1(k), k);
+
+        int count = 0;
+        for(int i = h1(k); this.keysT1[i] != null; i = nextT1(i))
+        {
+            if(k.equals(this.keysT1[i]))
+                return i;
+            if(count >= this.mT1)
+                break;
+            count++;
+        }
+        return -1;
+    }
+
+    public void setIncrementalResize(boolean state)
+    {
+        this.incrementalResize = state;
+        //ao desligar o modo incremental, a migração que estiver a decorrer é terminada de imediato
+        while(!state && this.resizeTarget != null)
+            migrateStep();
+    }
+
+    public boolean isMigrating()
+    {
+        return this.resizeTarget != null;
+    }
+
+    private void startMigration(int primeIndex, long hashSeed)
+    {
+        this.migrationEvent = new CuckooResizeEvent();
+        this.migrationEvent.begin();
+        this.migrationEvent.oldPrimeIndex = this.primeIndex;
+        this.resizeTarget = new ForgettingCuckooHashTable<Key,Value>(primeIndex, this.bucketSize, this.maxLoadFactor, this.powerOfTwoSizes,
+                this.timeSource, this.forgettingWindowMillis);
+        this.resizeTarget.hashStrategy = this.hashStrategy;
+        this.resizeTarget.hashSeed = hashSeed;
+        this.resizeTarget.rehashes = (primeIndex == this.primeIndex) ? this.rehashes : 0;
+        this.resizeTarget.currentTimeMillis = this.currentTimeMillis;
+        this.resizeTarget.timeOffsetMillis = this.timeOffsetMillis;
+        this.resizeTarget.advanceTimeStatus = this.advanceTimeStatus;
+        this.resizeTarget.swapStatistics = this.swapStatistics;
+        this.resizeTarget.kickSeed = this.kickSeed;
+        this.resizeTarget.bfsInsertion = this.bfsInsertion;
+        this.resizeTarget.longKickChainThreshold = this.longKickChainThreshold;
+        this.resizeTarget.strictLookup = this.strictLookup;
+        this.resizeTarget.counters = this.counters;
+        this.resizeTarget.countOperations = false;
+        this.resizeTarget.setStashCapacity(this.stashCapacity);
+        this.resizeTarget.setBufferedAccessRecording(this.accessSampleRate);
+        if(this.expiryWheel != null)
+            this.resizeTarget.attachExpiryWheel(this.expiryWheel);
+        this.migrationIndex = 0;
+
+        //as chaves do stash passam logo para a nova tabela, para que durante a migração a tabela antiga não tenha stash
+        this.resizeTarget.isResizing = true;
+        for(int i = 0; i < this.stashCount; i++)
+        {
+            this.resizeTarget.putWithTimestamp(this.stashKeys[i], this.stashValues[i], this.stashTimestamps[i], stashNodeAt(i));
+            this.stashKeys[i] = null;
+            this.stashValues[i] = null;
+            if(this.expiryWheel != null)
+                this.stashNodes[i] = null;
+        }
+        this.stashCount = 0;
+        this.resizeTarget.isResizing = false;
+    }
+
+    //migra as próximas MIGRATION_STEP posições da tabela antiga para a nova.
+    //Cada chave leva consigo o seu timestamp, e durante a migração a nova tabela não esquece chaves
+    private void migrateStep()
+    {
+        this.modCount++;
+        int total = this.keysT0.length + this.keysT1.length;
+        int end = Math.min(this.migrationIndex + MIGRATION_STEP, total);
+
+        this.resizeTarget.isResizing = true;
+        this.resizeTarget.swapLogging = false;
+        for(; this.migrationIndex < end; this.migrationIndex++)
+        {
+            if(this.migrationIndex < this.keysT0.length)
+            {
+                int i = this.migrationIndex;
+                if(this.keysT0[i] == null) continue;
+                this.resizeTarget.putWithTimestamp(this.keysT0[i], this.valuesT0[i], this.timestampsT0[i], nodeAt(0, i));
+                setNode(0, i, null);
+                clearTag(0, i);
+                this.keysT0[i] = null;
+                this.valuesT0[i] = null;
+                this.sizeT0--;
+            }
+            else
+            {
+                int i = this.migrationIndex - this.keysT0.length;
+                if(this.keysT1[i] == null) continue;
+                this.resizeTarget.putWithTimestamp(this.keysT1[i], this.valuesT1[i], this.timestampsT1[i], nodeAt(1, i));
+                setNode(1, i, null);
+                clearTag(1, i);
+                this.keysT1[i] = null;
+                this.valuesT1[i] = null;
+                this.sizeT1--;
+            }
+        }
+        this.resizeTarget.isResizing = false;
+
+        if(this.migrationIndex >= total)
+            finishMigration();
+    }
+
+    private void finishMigration()
+    {
+        ForgettingCuckooHashTable<Key,Value> aux = this.resizeTarget;
+        this.resizeTarget = null;
+        aux.drainAccesses();
+        //as chaves que ainda estejam no stash desta tabela passam para a nova, para não se perderem
+        //quando o stash da nova tabela o substituir
+        aux.isResizing = true;
+        for(int i = 0; i < this.stashCount; i++)
+            aux.putWithTimestamp(this.stashKeys[i], this.stashValues[i], this.stashTimestamps[i], stashNodeAt(i));
+        aux.isResizing = false;
+        this.stashCount = 0;
+        this.primeIndex = aux.primeIndex;
+        this.keysT0 = aux.keysT0;
+        this.keysT1 = aux.keysT1;
+        this.tagsT0 = aux.tagsT0;
+        this.tagsT1 = aux.tagsT1;
+        this.valuesT0 = aux.valuesT0;
+        this.valuesT1 = aux.valuesT1;
+        this.timestampsT0 = aux.timestampsT0;
+        this.timestampsT1 = aux.timestampsT1;
+        this.mT0 = aux.mT0;
+        this.mT1 = aux.mT1;
+        this.shiftT0 = aux.shiftT0;
+        this.shiftT1 = aux.shiftT1;
+        this.sizeT0 = aux.sizeT0;
+        this.sizeT1 = aux.sizeT1;
+        //as chaves que a nova tabela guardou no stash durante a migração também passam para esta tabela
+        this.stashKeys = aux.stashKeys;
+        this.stashValues = aux.stashValues;
+        this.stashTimestamps = aux.stashTimestamps;
+        this.stashCount = aux.stashCount;
+        this.nodesT0 = aux.nodesT0;
+        this.nodesT1 = aux.nodesT1;
+        this.stashNodes = aux.stashNodes;
+        this.kickSeed = aux.kickSeed;
+        this.hashSeed = aux.hashSeed;
+        this.rehashes = aux.rehashes;
+        this.migrationIndex = 0;
+        this.forgottenSinceEvent += aux.forgottenSinceEvent;
+        reportResize(this.migrationEvent, this.migrationEvent.oldPrimeIndex, true);
+        this.migrationEvent = null;
+    }
+
+    //insere a chave e coloca o timestamp recebido na posição onde a chave ficou
+    private void putWithTimestamp(Key k, Value v, long timestamp, TimingWheel.Node<Key> node)
+    {
+        insertMoved(k, v, node);
+        int i = indexOfT0(k);
+        if(i >= 0)
+        {
+            this.timestampsT0[i] = timestamp;
+            return;
+        }
+        i = indexOfT1(k);
+        if(i >= 0)
+            this.timestampsT1[i] = timestamp;
+    }
+
+    //atualiza a chave se ela ainda estiver na tabela antiga; devolve false se a chave lá não estiver
+    private boolean updateOldTable(Key k, Value v)
+    {
+        int i = indexOfT0(k);
+        if(i >= 0)
+        {
+            this.valuesT0[i] = v;
+            this.timestampsT0[i] = this.currentTimeMillis;
+            if(this.expiryWheel != null)
+                endTtl(this.nodesT0[i]);
+            return true;
+        }
+        i = indexOfT1(k);
+        if(i >= 0)
+        {
+            this.valuesT1[i] = v;
+            this.timestampsT1[i] = this.currentTimeMillis;
+            if(this.expiryWheel != null)
+                endTtl(this.nodesT1[i]);
+            return true;
+        }
+        return false;
+    }
+
+    //durante a migração as chaves novas vão sempre para a nova tabela
+    private void putDuringMigration(Key k, Value v)
+    {
+        if(updateOldTable(k, v))
+        {
+            this.counters.updates.increment();
+            return;
+        }
+        this.resizeTarget.swapLogging = this.swapLogging;
+        this.resizeTarget.put(k, v);
+    }
+
+    //o acesso a uma chave que ainda está na tabela antiga é registado como num get normal (em buffer, se ligado)
+    private Value getDuringMigration(Key k)
+    {
+        int i = indexOfT0(k);
+        if(i >= 0)
+        {
+            recordAccess(i);
+            return this.valuesT0[i];
+        }
+        i = indexOfT1(k);
+        if(i >= 0)
+        {
+            recordAccess(~i);
+            return this.valuesT1[i];
+        }
+        return this.resizeTarget.get(k);
+    }
+
+    private void deleteDuringMigration(Key k)
+    {
+        int i = indexOfT0(k);
+        if(i >= 0)
+        {
+            removeNode(0, i);
+            clearTag(0, i);
+            this.keysT0[i] = null;
+            this.valuesT0[i] = null;
+            this.sizeT0--;
+            return;
+        }
+        i = indexOfT1(k);
+        if(i >= 0)
+        {
+            removeNode(1, i);
+            clearTag(1, i);
+            this.keysT1[i] = null;
+            this.valuesT1[i] = null;
+            this.sizeT1--;
+            return;
+        }
+        this.resizeTarget.delete(k);
+    }
+
+    //devolve a posição da chave no bucket indicado, ou -1 se a chave não estiver lá
+    private int findInBucket(Key[] keys, int bucket, Key k)
+    {
+        long[] tags = (keys == this.keysT0) ? this.tagsT0 : this.tagsT1;
+        if(tags != null)
+            return findByTag(keys, tags[bucket], bucket, k);
+
+        int start = bucket * this.bucketSize;
+        for(int i = start; i < start + this.bucketSize; i++)
+        {
+            if(keys[i] != null && keys[i].equals(k))
+                return i;
+        }
+        return -1;
+    }
+
+    //compara a etiqueta da chave com as etiquetas do bucket todas de uma vez: cada byte de bucketTags que seja igual
+    //à etiqueta fica a 0 depois do xor, e a subtração marca esses bytes (e, raramente, o byte acima de um deles).
+    //O equals só é chamado nas posições marcadas
+    private int findByTag(Key[] keys, long bucketTags, int bucket, Key k)
+    {
+        long x = bucketTags ^ (tagOf(k) * TAG_LANES_LOW);
+        long matches = (x - TAG_LANES_LOW) & ~x & TAG_LANES_HIGH;
+        int start = bucket * this.bucketSize;
+        while(matches != 0)
+        {
+            int i = start + (Long.numberOfTrailingZeros(matches) >>> 3);
+            if(keys[i] != null && keys[i].equals(k))
+                return i;
+            matches &= matches - 1;
+        }
+        return -1;
+    }
+
+    //7 bits do hashcode, com o bit mais alto a 1 para que uma posição ocupada nunca tenha a etiqueta 0
+    private static long tagOf(Object k)
+    {
+        return 0x80 | ((k.hashCode() * 0x9E3779B9) >>> 25);
+    }
+
+    private void setTag(int currentTable, int slot, Key k)
+    {
+        long[] tags = (currentTable == 0) ? this.tagsT0 : this.tagsT1;
+        if(tags == null)
+            return;
+        int shift = (slot % this.bucketSize) << 3;
+        int bucket = slot / this.bucketSize;
+        tags[bucket] = (tags[bucket] & ~(0xFFL << shift)) | (tagOf(k) << shift);
+    }
+
+    private void clearTag(int currentTable, int slot)
+    {
+        long[] tags = (currentTable == 0) ? this.tagsT0 : this.tagsT1;
+        if(tags == null)
+            return;
+        int shift = (slot % this.bucketSize) << 3;
+        tags[slot / this.bucketSize] &= ~(0xFFL << shift);
+    }
+
+    //devolve a primeira posição livre do bucket indicado, ou -1 se o bucket estiver cheio
+    private int freeSlotInBucket(Key[] keys, int bucket)
+    {
+        int start = bucket * this.bucketSize;
+        for(int i = start; i < start + this.bucketSize; i++)
+        {
+            if(keys[i] == null)
+                return i;
+        }
+        return -1;
+    }
+
+    //devolve uma posição do bucket cuja chave já foi esquecida, ou -1 se não existir nenhuma
+    private int expiredSlotInBucket(int currentTable, int bucket)
+    {
+        if(!this.advanceTimeStatus || this.isResizing)
+            return -1;
+        int start = bucket * this.bucketSize;
+        for(int i = start; i < start + this.bucketSize; i++)
+        {
+            if(isKeyExpired(currentTable, i))
+                return i;
+        }
+        return -1;
+    }
+
+    private Value getBucketized(Key k)
+    {
+        int i = findInBucket(this.keysT0, h0(k), k);
+        if(i >= 0)
+        {
+            if(this.accessSlots != null)
+                bufferAccess(i, this.keysT0[i]);
+            else if(!this.isResizing)
+                this.timestampsT0[i] = this.currentTimeMillis;
+            return this.valuesT0[i];
+        }
+        i = findInBucket(this.keysT1, h1(k), k);
+        if(i >= 0)
+        {
+            if(this.accessSlots != null)
+                bufferAccess(~i, this.keysT1[i]);
+            else if(!this.isResizing)
+                this.timestampsT1[i] = this.currentTimeMillis;
+            return this.valuesT1[i];
+        }
+        return getFromStash(k);
+    }
+
+    private void updateValueBucketized(Key k, Value v)
+    {
+        int i = findInBucket(this.keysT0, h0(k), k);
+        if(i >= 0)
+        {
+            this.valuesT0[i] = v;
+            if(!this.isResizing)
+                this.timestampsT0[i] = this.currentTimeMillis;
+            return;
+        }
+        i = findInBucket(this.keysT1, h1(k), k);
+        if(i >= 0)
+        {
+            this.valuesT1[i] = v;
+            if(!this.isResizing)
+                this.timestampsT1[i] = this.currentTimeMillis;
+        }
+    }
+
+    //inserção de uma chave nova quando cada índice aponta para um bucket:
+    //primeiro procura uma posição livre num dos dois buckets, depois uma chave esquecida, e só depois
+    //expulsa uma vítima escolhida ao acaso no bucket, que é levada para o seu bucket na outra tabela.
+    //Ao contrário do modo com uma posição por índice, o timestamp acompanha a chave quando esta é expulsa
+    private void putBucketized(Key k, Value v, TimingWheel.Node<Key> node)
+    {
+        if(checkSameHashCodeBucketized(k))
+            throw new IllegalArgumentException();
+
+        int currentTable = 0;
+        int swaps = 0;
+        int maxSwaps = MAX_SWAPS;
+        long timestamp = this.currentTimeMillis;
+
+        int slot = freeSlotInBucket(this.keysT0, h0(k));
+        if(slot < 0)
+        {
+            slot = freeSlotInBucket(this.keysT1, h1(k));
+            if(slot >= 0)
+                currentTable = 1;
+        }
+        if(slot >= 0)
+        {
+            insertSlot(currentTable, slot, k, v, timestamp, node);
+            logSwaps(0);
+            return;
+        }
+
+        while(swaps < maxSwaps) {
+            int bucket = (currentTable == 0) ? h0(k) : h1(k);
+            if(swaps > 0)
+            {
+                slot = freeSlotInBucket((currentTable == 0) ? this.keysT0 : this.keysT1, bucket);
+                if(slot >= 0)
+                {
+                    insertSlot(currentTable, slot, k, v, timestamp, node);
+                    break;
+                }
+            }
+            slot = expiredSlotInBucket(currentTable, bucket);
+            if(slot >= 0)
+            {
+                //a chave antiga é esquecida e substituída pela nova
+                if(currentTable == 0)
+                    forgetEntry(this.keysT0[slot], this.valuesT0[slot], nodeAt(0, slot));
+                else
+                    forgetEntry(this.keysT1[slot], this.valuesT1[slot], nodeAt(1, slot));
+                replaceSlot(currentTable, slot, k, v, timestamp, node);
+                break;
+            }
+
+            slot = bucket * this.bucketSize + nextKickOffset();
+            Key[] keys = (currentTable == 0) ? this.keysT0 : this.keysT1;
+            Value[] values = (currentTable == 0) ? this.valuesT0 : this.valuesT1;
+            long[] timestamps = (currentTable == 0) ? this.timestampsT0 : this.timestampsT1;
+            Key tempKey = keys[slot];
+            Value tempValue = values[slot];
+            long tempTimestamp = timestamps[slot];
+            TimingWheel.Node<Key> tempNode = nodeAt(currentTable, slot);
+            keys[slot] = k;
+            values[slot] = v;
+            timestamps[slot] = timestamp;
+            setNode(currentTable, slot, node);
+            setTag(currentTable, slot, k);
+            k = tempKey;
+            v = tempValue;
+            timestamp = tempTimestamp;
+            node = tempNode;
+            currentTable = (currentTable == 0) ? 1 : 0;
+            swaps++;
+        }
+        if(swaps >= maxSwaps)
+        {
+            reportKickChain(swaps, true);
+            if(addToStash(k, v, timestamp, node))
+            {
+                logSwaps(swaps);
+                return;
+            }
+            handleInsertFailure();
+            putEntry(k, v, node);
+            return;
+        }
+        logSwaps(swaps);
+    }
+
+    private void logSwaps(int swaps)
+    {
+        if(!this.isResizing)
+            this.counters.kicks.add(swaps);
+        if(swaps < MAX_SWAPS)
+            reportKickChain(swaps, false);
+        if(this.swapLogging)
+        {
+            this.swapStatistics.record(swaps);
+        }
+    }
+
+    private void insertSlot(int currentTable, int slot, Key k, Value v, long timestamp, TimingWheel.Node<Key> node)
+    {
+        replaceSlot(currentTable, slot, k, v, timestamp, node);
+        if(currentTable == 0)
+            this.sizeT0++;
+        else
+            this.sizeT1++;
+    }
+
+    private void replaceSlot(int currentTable, int slot, Key k, Value v, long timestamp, TimingWheel.Node<Key> node)
+    {
+        setTag(currentTable, slot, k);
+        setNode(currentTable, slot, node);
+        if(currentTable == 0)
+        {
+            this.keysT0[slot] = k;
+            this.valuesT0[slot] = v;
+            this.timestampsT0[slot] = timestamp;
+        }
+        else
+        {
+            this.keysT1[slot] = k;
+            this.valuesT1[slot] = v;
+            this.timestampsT1[slot] = timestamp;
+        }
+    }
+
+    //escolhe a posição da vítima dentro do bucket (xorshift, para não alocar um Random)
+    private int nextKickOffset()
+    {
+        int x = this.kickSeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        this.kickSeed = x;
+        return (x & 0x7fffffff) % this.bucketSize;
+    }
+
+    //equivalente a checkSameHashCode: a chave não pode ser inserida se os dois buckets estiverem cheios
+    //apenas com chaves que têm o mesmo hashcode
+    private boolean checkSameHashCodeBucketized(Key currentKey)
+    {
+        int start0 = h0(currentKey) * this.bucketSize;
+        int start1 = h1(currentKey) * this.bucketSize;
+        for(int j = 0; j < this.bucketSize; j++)
+        {
+            if(this.keysT0[start0 + j] == null || !sameHash(currentKey, this.keysT0[start0 + j]))
+                return false;
+            if(this.keysT1[start1 + j] == null || !sameHash(currentKey, this.keysT1[start1 + j]))
+                return false;
+        }
+        return true;
+    }
+
+    private void deleteBucketized(Key k)
+    {
+        int i = findInBucket(this.keysT0, h0(k), k);
+        if(i >= 0)
+        {
+            removeNode(0, i);
+            clearTag(0, i);
+            this.keysT0[i] = null;
+            this.valuesT0[i] = null;
+            this.sizeT0--;
+        }
+        else
+        {
+            i = findInBucket(this.keysT1, h1(k), k);
+            if(i < 0) return;
+            removeNode(1, i);
+            clearTag(1, i);
+            this.keysT1[i] = null;
+            this.valuesT1[i] = null;
+            this.sizeT1--;
+        }
+        reinsertStash();
+        shrinkAfterDelete();
+    }
+
+    public void setBfsInsertion(boolean state)
+    {
+        this.bfsInsertion = state;
+    }
+
+    //com uma posição por índice, as procuras passam a ser feitas como no modo com buckets (um bucket de
+    //uma posição em cada tabela): exatamente duas leituras, mais o stash
+    public void setStrictLookup(boolean state)
+    {
+        this.strictLookup = state;
+        if(this.resizeTarget != null)
+            this.resizeTarget.strictLookup = state;
+    }
+
+    public boolean isStrictLookup()
+    {
+        return this.strictLookup;
+    }
+
+    //insere uma chave nova procurando primeiro o caminho de trocas mais curto; se não existir nenhum caminho
+    //dentro do limite, desiste logo e faz resize, sem ter movido nenhuma chave.
+    //Neste modo o timestamp acompanha cada chave ao longo do caminho
+    private void putBfs(Key k, Value v, TimingWheel.Node<Key> node)
+    {
+        if(checkSameHashCodeBucketized(k))
+            throw new IllegalArgumentException();
+
+        int end = findBfsPath(k);
+        if(end < 0)
+        {
+            if(addToStash(k, v, this.currentTimeMillis, node))
+                return;
+            handleInsertFailure();
+            putEntry(k, v, node);
+            return;
+        }
+        logSwaps(executeBfsPath(end, k, v, node));
+    }
+
+    //adiciona uma posição à fila da procura, e devolve true se essa posição pode receber uma chave
+    private boolean addBfsNode(int node, int table, int slot, int parent)
+    {
+        this.bfsTable[node] = (byte) table;
+        this.bfsSlot[node] = slot;
+        this.bfsParent[node] = parent;
+
+        Key[] keys = (table == 0) ? this.keysT0 : this.keysT1;
+        return keys[slot] == null || (this.advanceTimeStatus && !this.isResizing && isKeyExpired(table, slot));
+    }
+
+    //com buckets, a mesma posição pode aparecer duas vezes no mesmo caminho; essas posições não são exploradas
+    private boolean isBfsAncestor(int node, int table, int slot)
+    {
+        for(int n = node; n >= 0; n = this.bfsParent[n])
+        {
+            if(this.bfsTable[n] == table && this.bfsSlot[n] == slot)
+                return true;
+        }
+        return false;
+    }
+
+    //procura em largura a partir das posições da chave; devolve o nó final do caminho, ou -1 se não houver caminho
+    private int findBfsPath(Key k)
+    {
+        if(this.bfsSlot == null)
+        {
+            this.bfsSlot = new int[MAX_BFS_NODES];
+            this.bfsTable = new byte[MAX_BFS_NODES];
+            this.bfsParent = new int[MAX_BFS_NODES];
+        }
+
+        int tail = 0;
+        for(int table = 0; table < 2; table++)
+        {
+            int start = ((table == 0) ? h0(k) : h1(k)) * this.bucketSize;
+            for(int j = 0; j < this.bucketSize; j++)
+            {
+                if(addBfsNode(tail++, table, start + j, -1))
+                    return tail - 1;
+            }
+        }
+
+        for(int head = 0; head < tail; head++)
+        {
+            int table = this.bfsTable[head];
+            Key current = (table == 0) ? this.keysT0[this.bfsSlot[head]] : this.keysT1[this.bfsSlot[head]];
+            int alternative = 1 - table;
+            int start = ((alternative == 0) ? h0(current) : h1(current)) * this.bucketSize;
+            for(int j = 0; j < this.bucketSize; j++)
             {
-                if(this.keysT1[iT1].equals(k))
-                { 
-                    currentTable = 1;
-                    break;
-                }
-            } 
+                if(tail >= MAX_BFS_NODES)
+                    return -1;
+                if(this.bucketSize > 1 && isBfsAncestor(head, alternative, start + j))
+                    continue;
+                if(addBfsNode(tail++, alternative, start + j, head))
+                    return tail - 1;
+            }
+        }
+        return -1;
+    }
+
+    //executa o caminho do fim para o início, e coloca a nova chave na primeira posição.
+    //Devolve o número de trocas feitas
+    private int executeBfsPath(int end, Key k, Value v, TimingWheel.Node<Key> newNode)
+    {
+        int table = this.bfsTable[end];
+        int slot = this.bfsSlot[end];
+        if(((table == 0) ? this.keysT0[slot] : this.keysT1[slot]) != null)
+        {
+            //a posição final tem uma chave esquecida, que é removida
+            if(table == 0)
+                forgetEntry(this.keysT0[slot], this.valuesT0[slot], nodeAt(0, slot));
+            else
+                forgetEntry(this.keysT1[slot], this.valuesT1[slot], nodeAt(1, slot));
+            removeSlot(table, slot);
+        }
 
-            iT0 = (iT0+1) % this.mT0;
-            iT1 = (iT1+1) % this.mT1;
+        int swaps = 0;
+        int node = end;
+        while(this.bfsParent[node] >= 0)
+        {
+            int parent = this.bfsParent[node];
+            int fromTable = this.bfsTable[parent];
+            int from = this.bfsSlot[parent];
+            if(fromTable == 0)
+                insertSlot(this.bfsTable[node], this.bfsSlot[node], this.keysT0[from], this.valuesT0[from], this.timestampsT0[from], nodeAt(0, from));
+            else
+                insertSlot(this.bfsTable[node], this.bfsSlot[node], this.keysT1[from], this.valuesT1[from], this.timestampsT1[from], nodeAt(1, from));
+            removeSlot(fromTable, from);
+            node = parent;
+            swaps++;
         }
+        insertSlot(this.bfsTable[node], this.bfsSlot[node], k, v, this.currentTimeMillis, newNode);
+        return swaps;
+    }
+
+    //esvazia a posição sem tirar a chave da roda: a chave foi movida para outra posição, ou já foi esquecida
+    private void removeSlot(int currentTable, int slot)
+    {
+        setNode(currentTable, slot, null);
+        clearTag(currentTable, slot);
         if(currentTable == 0)
         {
-            this.keysT0[iT0] = null;
-            this.valuesT0[iT0] = null;
+            this.keysT0[slot] = null;
+            this.valuesT0[slot] = null;
             this.sizeT0--;
         }
         else
         {
-            this.keysT1[iT1] = null;
-            this.valuesT1[iT1] = null;
+            this.keysT1[slot] = null;
+            this.valuesT1[slot] = null;
             this.sizeT1--;
         }
+    }
 
-        if(getLoadFactor() < 0.125f && (getCapacity() > ForgettingCuckooHashTable.primesTable0[0] && getCapacity() > ForgettingCuckooHashTable.primesTable1[0]))
-            resize(this.primeIndex-1);
+    //define o número máximo de chaves no stash; 0 desliga o stash
+    @SuppressWarnings("unchecked")
+    public void setStashCapacity(int capacity)
+    {
+        if(capacity < this.stashCount) throw new IllegalArgumentException();
+
+        Key[] keys = (Key[]) new Object[capacity];
+        Value[] values = (Value[]) new Object[capacity];
+        long[] timestamps = new long[capacity];
+        if(this.stashCount > 0)
+        {
+            System.arraycopy(this.stashKeys, 0, keys, 0, this.stashCount);
+            System.arraycopy(this.stashValues, 0, values, 0, this.stashCount);
+            System.arraycopy(this.stashTimestamps, 0, timestamps, 0, this.stashCount);
+        }
+        if(this.expiryWheel != null)
+        {
+            TimingWheel.Node<Key>[] nodes = newNodes(capacity);
+            System.arraycopy(this.stashNodes, 0, nodes, 0, this.stashCount);
+            this.stashNodes = nodes;
+        }
+        this.stashKeys = keys;
+        this.stashValues = values;
+        this.stashTimestamps = timestamps;
+        this.stashCapacity = capacity;
+    }
+
+    public int getStashCapacity()
+    {
+        return this.stashCapacity;
+    }
+
+    //número de chaves que estão atualmente no stash
+    public int getStashSize()
+    {
+        return this.stashCount;
+    }
+
+    private int indexInStash(Key k)
+    {
+        for(int i = 0; i < this.stashCount; i++)
+        {
+            if(this.stashKeys[i].equals(k))
+                return i;
+        }
+        return -1;
+    }
+
+    private Value getFromStash(Key k)
+    {
+        int i = indexInStash(k);
+        if(i < 0)
+            return null;
+        if(!this.isResizing)
+            this.stashTimestamps[i] = this.currentTimeMillis;
+        return this.stashValues[i];
+    }
+
+    //guarda no stash uma chave cuja inserção falhou. Se o stash estiver cheio, a chave pode ocupar o lugar
+    //de uma chave do stash que já tenha sido esquecida. Devolve false se não houver espaço
+    private boolean addToStash(Key k, Value v, long timestamp, TimingWheel.Node<Key> node)
+    {
+        int i = this.stashCount;
+        if(i >= this.stashCapacity)
+        {
+            if(!this.advanceTimeStatus || this.isResizing)
+                return false;
+            for(i = 0; i < this.stashCount; i++)
+            {
+                if(this.currentTimeMillis - this.stashTimestamps[i] > this.forgettingWindowMillis)
+                    break;
+            }
+            if(i >= this.stashCount)
+                return false;
+            forgetEntry(this.stashKeys[i], this.stashValues[i], stashNodeAt(i));
+        }
+        else
+            this.stashCount++;
+
+        this.stashKeys[i] = k;
+        this.stashValues[i] = v;
+        this.stashTimestamps[i] = timestamp;
+        if(this.expiryWheel != null)
+            this.stashNodes[i] = node;
+        return true;
+    }
+
+    private void removeFromStash(int i)
+    {
+        int last = --this.stashCount;
+        this.stashKeys[i] = this.stashKeys[last];
+        this.stashValues[i] = this.stashValues[last];
+        this.stashTimestamps[i] = this.stashTimestamps[last];
+        this.stashKeys[last] = null;
+        this.stashValues[last] = null;
+        if(this.expiryWheel != null)
+        {
+            this.stashNodes[i] = this.stashNodes[last];
+            this.stashNodes[last] = null;
+        }
+    }
+
+    //depois de um delete, tenta devolver as chaves do stash às tabelas, mas só se uma das suas posições estiver livre
+    private void reinsertStash()
+    {
+        for(int i = this.stashCount - 1; i >= 0; i--)
+        {
+            Key k = this.stashKeys[i];
+            int currentTable = 0;
+            int slot = freeSlotInBucket(this.keysT0, h0(k));
+            if(slot < 0)
+            {
+                currentTable = 1;
+                slot = freeSlotInBucket(this.keysT1, h1(k));
+            }
+            if(slot >= 0)
+            {
+                insertSlot(currentTable, slot, k, this.stashValues[i], this.stashTimestamps[i], stashNodeAt(i));
+                removeFromStash(i);
+            }
+        }
     }
 
     public Iterable<Key> keys() {
@@ -419,7 +2762,16 @@ public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Va
                     allKeys.add(key);
                 }
             }
-            
+
+            for (int i = 0; i < stashCount; i++) {
+                allKeys.add(stashKeys[i]);
+            }
+
+            if (resizeTarget != null) {
+                for (Key key : resizeTarget.keys()) {
+                    allKeys.add(key);
+                }
+            }
         }
 
         public boolean hasNext() {
@@ -449,85 +2801,194 @@ public class ForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Va
         this.swapLogging = state;
     }
 
+    //média das trocas das últimas 100 inserções
     public float getSwapAverage()
     {
-        if(swapCounts.isEmpty() || !swapLogging)
+        if(this.swapStatistics.isEmpty() || !swapLogging)
             return 0.0f;
-        
-        int exchanges = Math.min(swapCounts.size(), 100);
-        int sum = 0;
-        int count = 0;
-        for(int i = swapCounts.size() - 1; count < exchanges;i--)
-        {
-            sum += swapCounts.get(i);
-            count++;
-        }
-
-        return (float) sum / exchanges;
+        return this.swapStatistics.windowAverage();
     }
 
+    //variância das trocas das últimas 100 inserções
     public float getSwapVariation()
     {
-        if(swapCounts.isEmpty() || !swapLogging)
+        if(this.swapStatistics.isEmpty() || !swapLogging)
             return 0.0f;
-        
-        int exchanges = Math.min(swapCounts.size(), 100);
-        float sum = 0;
-        float average = getSwapAverage();
-        int count = 0;
-        for(int i = swapCounts.size() - 1; count < exchanges;i--)
+        return this.swapStatistics.windowVariation();
+    }
+
+    //média e variância das trocas de todas as inserções registadas, calculadas à medida (Welford)
+    public double getSwapRunningMean()
+    {
+        return this.swapStatistics.mean();
+    }
+
+    public double getSwapRunningVariance()
+    {
+        return this.swapStatistics.variance();
+    }
+
+    //estimativa do percentil p (entre 0 e 1) das trocas por inserção, a partir do histograma por potências de 2
+    public int getSwapPercentile(double p)
+    {
+        return this.swapStatistics.percentile(p);
+    }
+
+    public int getMaxSwaps()
+    {
+        return this.swapStatistics.max();
+    }
+
+    public TableStats getStats()
+    {
+        int sizeT0 = this.sizeT0;
+        int sizeT1 = this.sizeT1;
+        int stashSize = this.stashCount;
+        int capacity = getCapacity();
+        if(this.resizeTarget != null)
         {
-            float difference = swapCounts.get(i) - average;
-            sum += (difference * difference);
-            count++;
+            sizeT0 += this.resizeTarget.sizeT0;
+            sizeT1 += this.resizeTarget.sizeT1;
+            stashSize += this.resizeTarget.stashCount;
+            capacity += this.resizeTarget.getCapacity();
         }
+        return new TableStats(this.counters, sizeT0, sizeT1, stashSize, capacity);
+    }
 
-        return  sum / exchanges;
+    public void resetStats()
+    {
+        this.counters.reset();
     }
 
-    public void advanceTime(int hours) {
-        this.currentTimeMillis += (hours * 3600000);
-        this.advanceTimeStatus = true;
+    //publica as estatísticas desta tabela como um MBean com o nome indicado (por exemplo
+    //"aed.tables:type=ForgettingCuckooHashTable,name=cache"); a tabela só pode estar registada com um nome de cada vez
+    public void registerMBean(String objectName) throws JMException
+    {
+        if(this.mbeanName != null) throw new IllegalStateException();
+        ObjectName name = new ObjectName(objectName);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(new StatsBean(), TableStatsMBean.class), name);
+        this.mbeanName = name;
     }
 
-    @SuppressWarnings("unchecked")
-    public static void main(String[] args) {
-        int iterations = 15;
-        testWithForgetting();
-        testWithoutForgetting();
+    public void unregisterMBean() throws JMException
+    {
+        if(this.mbeanName == null)
+            return;
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.mbeanName);
+        this.mbeanName = null;
+    }
 
-        Function<Integer, ForgettingCuckooHashTable> exampleGenerator = (Integer size) -> {
-            ForgettingCuckooHashTable<Integer, String> table = new ForgettingCuckooHashTable<>(determinePrimeIndex(size));
-            // Adicionar elementos na tabela usando o método 'put'
-            for (int i = 0; i < size; i++) {
-                table.put(i, "Valor" + i);
-            }
-            return table;
-        };
+    //cada atributo lê uma nova fotografia das estatísticas; os contadores podem ser lidos de outra thread
+    private class StatsBean implements TableStatsMBean
+    {
+        public long getGets()
+        {
+            return getStats().getGets();
+        }
 
-        Consumer<ForgettingCuckooHashTable> testPutMethod = hash -> {
-            // Adicione elementos à tabela usando o método 'put'
-            int maxSize = hash.getCapacity();
-            for (int i = 0; i < maxSize; i++) {
-                hash.put(i, "NovoValor" + i);
-            }
-        };
-        TimeAnalysisUtils.runDoublingRatioTest(exampleGenerator, testPutMethod, iterations);
+        public long getHits()
+        {
+            return getStats().getHits();
+        }
 
-        Consumer<ForgettingCuckooHashTable> testGetMethod = hash -> hash.get(1);
+        public long getMisses()
+        {
+            return getStats().getMisses();
+        }
 
+        public double getHitRate()
+        {
+            return getStats().getHitRate();
+        }
 
-        TimeAnalysisUtils.runDoublingRatioTest(exampleGenerator, testGetMethod, iterations);
-    }
+        public long getPuts()
+        {
+            return getStats().getPuts();
+        }
 
-    private static int determinePrimeIndex(int size) {
-        int[] primes = ForgettingCuckooHashTable.primesTable0; 
-        for (int i = 0; i < primes.length; i++) {
-            if (primes[i] >= size) {
-                return i; 
-            }
+        public long getUpdates()
+        {
+            return getStats().getUpdates();
+        }
+
+        public long getDeletes()
+        {
+            return getStats().getDeletes();
+        }
+
+        public long getForgotten()
+        {
+            return getStats().getForgotten();
+        }
+
+        public long getEvictions()
+        {
+            return getStats().getEvictions();
+        }
+
+        public long getKicks()
+        {
+            return getStats().getKicks();
+        }
+
+        public long getInsertFailures()
+        {
+            return getStats().getInsertFailures();
+        }
+
+        public long getResizesUp()
+        {
+            return getStats().getResizesUp();
+        }
+
+        public long getResizesDown()
+        {
+            return getStats().getResizesDown();
+        }
+
+        public long getResizeNanos()
+        {
+            return getStats().getResizeNanos();
+        }
+
+        public int getSizeT0()
+        {
+            return getStats().getSizeT0();
+        }
+
+        public int getSizeT1()
+        {
+            return getStats().getSizeT1();
+        }
+
+        public int getStashSize()
+        {
+            return getStats().getStashSize();
         }
-        return primes.length - 1; 
+
+        public int getCapacity()
+        {
+            return getStats().getCapacity();
+        }
+
+        public void resetStats()
+        {
+            ForgettingCuckooHashTable.this.resetStats();
+        }
+    }
+
+    public void advanceTime(int hours) {
+        this.currentTimeMillis += (hours * 3600000);
+        this.timeOffsetMillis += (hours * 3600000);
+        this.advanceTimeStatus = true;
+        if(this.resizeTarget != null)
+            this.resizeTarget.advanceTime(hours);
+    }
+
+    //os tempos das operações são medidos pelo módulo benchmarks (JMH); aqui só se mostra o efeito do esquecimento
+    public static void main(String[] args) {
+        testWithForgetting();
+        testWithoutForgetting();
     }
 
     private static void testWithForgetting() {
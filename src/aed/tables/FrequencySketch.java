@@ -0,0 +1,95 @@
+package aed.tables;
+
+//count-min sketch com contadores de 4 bits, usado na admissão TinyLFU da ForgettingCuckooHashTable.
+//Cada long guarda 16 contadores; uma chave usa um contador em cada um de 4 longs, escolhidos por 4 hashes diferentes,
+//e a sua frequência é o menor desses contadores. Depois de sampleSize incrementos todos os contadores são divididos
+//por dois, para que as chaves que foram populares há muito tempo percam a sua frequência aos poucos
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize)
+    {
+        int length = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 16);
+        this.additions = 0;
+    }
+
+    //o número estimado de acessos recentes à chave, de 0 a 15
+    int frequency(Object k)
+    {
+        int hash = spread(k.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for(int i = 0; i < 4; i++)
+        {
+            int index = indexOf(hash, i);
+            int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object k)
+    {
+        int hash = spread(k.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for(int i = 0; i < 4; i++)
+        {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if(added && ++this.additions == this.sampleSize)
+            reset();
+    }
+
+    //incrementa o contador, a não ser que já esteja em 15
+    private boolean incrementAt(int i, int counter)
+    {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if((this.table[i] & mask) != mask)
+        {
+            this.table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    //divide todos os contadores por dois; os contadores ímpares perdem meio incremento cada, que é descontado na contagem de adições
+    private void reset()
+    {
+        int odd = 0;
+        for(int i = 0; i < this.table.length; i++)
+        {
+            odd += Long.bitCount(this.table[i] & ONE_MASK);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.additions = (this.additions >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int i)
+    {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & this.tableMask;
+    }
+
+    private static int spread(int x)
+    {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
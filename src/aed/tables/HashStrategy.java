@@ -0,0 +1,35 @@
+package aed.tables;
+
+//família de funções de hash com seed, usada para escolher as posições de uma chave em cada tabela de cuckoo hashing.
+//A função 0 é usada para T0 e a função 1 para T1, e as duas têm de se comportar como funções independentes.
+//Mudar a seed tem de dar um novo par de funções, sem relação com o anterior, para que a tabela possa fazer
+//rehash no mesmo lugar depois de uma inserção falhada
+public interface HashStrategy<Key>
+{
+    //devolve um hash de 32 bits da chave, para a função (0 ou 1) e a seed dadas
+    int hash(Key k, int function, long seed);
+
+    //devolve uma impressão digital de 64 bits da chave. As Strings (e outras CharSequences) são calculadas a partir dos
+    //seus caracteres, para que strings com o mesmo hashCode (como "Aa" e "BB") tenham impressões diferentes;
+    //os inteiros usam o seu valor, e qualquer outra chave usa o seu hashCode
+    static long fingerprint(Object k)
+    {
+        if(k instanceof CharSequence)
+        {
+            //FNV-1a sobre os caracteres
+            CharSequence s = (CharSequence) k;
+            long hash = 0xcbf29ce484222325L;
+            for(int i = 0; i < s.length(); i++)
+            {
+                hash ^= s.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+        if(k instanceof Long)
+            return (Long) k;
+        if(k instanceof Integer)
+            return (Integer) k;
+        return k.hashCode();
+    }
+}
@@ -0,0 +1,377 @@
+package aed.tables;
+
+//versão especializada da ForgettingCuckooHashTable para chaves int e valores int
+//as chaves e valores são guardados em arrays primitivos, e a ocupação de cada posição é marcada num bitmap,
+//pelo que nenhuma operação de put/get/delete aloca objetos (não há boxing nem chamadas a hashCode/equals)
+public class IntIntForgettingCuckooHashTable {
+
+    private int mT0;
+    private int mT1;
+    private int primeIndex;
+    private int sizeT0;
+    private int sizeT1;
+    private int[] keysT0;
+    private int[] valuesT0;
+    private int[] keysT1;
+    private int[] valuesT1;
+    private long[] occupiedT0;
+    private long[] occupiedT1;
+    private long[] timestampsT0;
+    private long[] timestampsT1;
+    private long currentTimeMillis;
+    private boolean advanceTimeStatus;
+    private boolean isResizing;
+    //valor devolvido pelo get quando a chave não existe
+    private final int noEntryValue;
+
+    public IntIntForgettingCuckooHashTable(int primeIndex, int noEntryValue)
+    {
+        this.primeIndex = primeIndex;
+        this.mT0 = CuckooPrimes.primesTable0[primeIndex];
+        this.mT1 = CuckooPrimes.primesTable1[primeIndex];
+        this.sizeT0 = 0;
+        this.sizeT1 = 0;
+        this.keysT0 = new int[this.mT0];
+        this.valuesT0 = new int[this.mT0];
+        this.keysT1 = new int[this.mT1];
+        this.valuesT1 = new int[this.mT1];
+        this.occupiedT0 = new long[(this.mT0 + 63) >>> 6];
+        this.occupiedT1 = new long[(this.mT1 + 63) >>> 6];
+        this.timestampsT0 = new long[this.mT0];
+        this.timestampsT1 = new long[this.mT1];
+        this.currentTimeMillis = System.currentTimeMillis();
+        this.advanceTimeStatus = false;
+        this.isResizing = false;
+        this.noEntryValue = noEntryValue;
+    }
+
+    public IntIntForgettingCuckooHashTable(int primeIndex)
+    {
+        this(primeIndex, 0);
+    }
+
+    public IntIntForgettingCuckooHashTable()
+    {
+        this(0);
+    }
+
+    //fmix64 da chave completa; h0 usa os 32 bits de baixo e h1 os 32 bits de cima, para que as duas posições
+    //sejam independentes e chaves diferentes não fiquem presas às mesmas posições em todos os tamanhos
+    private static long hash(int k)
+    {
+        return Murmur3HashStrategy.fmix64(k);
+    }
+
+    private int h0(int k) {
+        return (int) ((hash(k) & 0xffffffffL) % this.mT0);
+    }
+
+    private int h1(int k) {
+        return (int) ((hash(k) >>> 32) % this.mT1);
+    }
+
+    private static boolean isOccupied(long[] bitmap, int i)
+    {
+        return (bitmap[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void setOccupied(long[] bitmap, int i)
+    {
+        bitmap[i >>> 6] |= (1L << i);
+    }
+
+    private static void clearOccupied(long[] bitmap, int i)
+    {
+        bitmap[i >>> 6] &= ~(1L << i);
+    }
+
+    public int size()
+    {
+        return this.sizeT0 + this.sizeT1;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity()
+    {
+        return this.mT0 + this.mT1;
+    }
+
+    public float getLoadFactor()
+    {
+        return (float) size()/getCapacity();
+    }
+
+    public int getNoEntryValue()
+    {
+        return this.noEntryValue;
+    }
+
+    //devolve o índice da chave em T0, ou -1 se a chave não estiver em T0
+    private int indexOfT0(int k)
+    {
+        int count = 0;
+        for(int i = h0(k); isOccupied(this.occupiedT0, i); i = (i+1) % this.mT0)
+        {
+            if(this.keysT0[i] == k)
+                return i;
+            if(count >= this.mT0)
+                break;
+            count++;
+        }
+        return -1;
+    }
+
+    //devolve o índice da chave em T1, ou -1 se a chave não estiver em T1
+    private int indexOfT1(int k)
+    {
+        int count = 0;
+        for(int i = h1(k); isOccupied(this.occupiedT1, i); i = (i+1) % this.mT1)
+        {
+            if(this.keysT1[i] == k)
+                return i;
+            if(count >= this.mT1)
+                break;
+            count++;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(int k) {
+        return indexOfT0(k) >= 0 || indexOfT1(k) >= 0;
+    }
+
+    public int get(int k)
+    {
+        int countT0 = 0;
+        for(int i = h0(k); isOccupied(this.occupiedT0, i); i = (i+1) % this.mT0)
+        {
+            if(!this.isResizing)
+                this.timestampsT0[i] = this.currentTimeMillis;
+            if(this.keysT0[i] == k)
+                return this.valuesT0[i];
+            if(countT0 >= this.mT0)
+                break;
+            countT0++;
+        }
+
+        int countT1 = 0;
+        for(int i = h1(k); isOccupied(this.occupiedT1, i); i = (i+1) % this.mT1)
+        {
+            if(!this.isResizing)
+                this.timestampsT1[i] = this.currentTimeMillis;
+            if(this.keysT1[i] == k)
+                return this.valuesT1[i];
+            if(countT1 >= this.mT1)
+                break;
+            countT1++;
+        }
+        return this.noEntryValue;
+    }
+
+    private void resize(int primeIndex)
+    {
+        if(primeIndex < 0 || primeIndex >= CuckooPrimes.primesTable0.length || primeIndex >= CuckooPrimes.primesTable1.length) return;
+
+        this.primeIndex = primeIndex;
+        this.isResizing = true;
+
+        IntIntForgettingCuckooHashTable aux = new IntIntForgettingCuckooHashTable(this.primeIndex, this.noEntryValue);
+        aux.currentTimeMillis = this.currentTimeMillis;
+
+        //os timestamps acompanham cada chave para a sua nova posição
+        for(int i = 0; i < this.mT0; i++)
+        {
+            if(isOccupied(this.occupiedT0, i)) aux.putWithTimestamp(this.keysT0[i], this.valuesT0[i], this.timestampsT0[i]);
+        }
+
+        for(int i = 0; i < this.mT1; i++)
+        {
+            if(isOccupied(this.occupiedT1, i)) aux.putWithTimestamp(this.keysT1[i], this.valuesT1[i], this.timestampsT1[i]);
+        }
+
+        this.isResizing = false;
+        this.keysT0 = aux.keysT0;
+        this.keysT1 = aux.keysT1;
+        this.valuesT0 = aux.valuesT0;
+        this.valuesT1 = aux.valuesT1;
+        this.occupiedT0 = aux.occupiedT0;
+        this.occupiedT1 = aux.occupiedT1;
+        this.timestampsT0 = aux.timestampsT0;
+        this.timestampsT1 = aux.timestampsT1;
+        this.sizeT0 = aux.sizeT0;
+        this.sizeT1 = aux.sizeT1;
+        this.mT0 = aux.mT0;
+        this.mT1 = aux.mT1;
+    }
+
+    private void putWithTimestamp(int k, int v, long timestamp)
+    {
+        put(k, v);
+        int i = indexOfT0(k);
+        if(i >= 0)
+            this.timestampsT0[i] = timestamp;
+        else
+        {
+            i = indexOfT1(k);
+            if(i >= 0)
+                this.timestampsT1[i] = timestamp;
+        }
+    }
+
+    public void put(int k, int v)
+    {
+        int i = indexOfT0(k);
+        if(i >= 0)
+        {
+            this.valuesT0[i] = v;
+            if(!this.isResizing)
+                this.timestampsT0[i] = this.currentTimeMillis;
+            return;
+        }
+        i = indexOfT1(k);
+        if(i >= 0)
+        {
+            this.valuesT1[i] = v;
+            if(!this.isResizing)
+                this.timestampsT1[i] = this.currentTimeMillis;
+            return;
+        }
+
+        if(getLoadFactor() >= 0.5f)
+            resize(this.primeIndex+1);
+
+        int currentTable = 0;
+        int swaps = 0;
+        int maxSwaps = 1000;
+
+        while(swaps < maxSwaps) {
+            if(currentTable == 0)
+            {
+                int index = h0(k);
+                if(!isOccupied(this.occupiedT0, index))
+                {
+                    this.keysT0[index] = k;
+                    this.valuesT0[index] = v;
+                    setOccupied(this.occupiedT0, index);
+                    this.sizeT0++;
+                    break;
+                }
+                if(checkSameHashCode(k))
+                    throw new IllegalArgumentException();
+                if(isKeyExpired(this.timestampsT0[index]) && this.advanceTimeStatus && !this.isResizing)
+                {
+                    //a chave antiga é esquecida e substituída pela nova
+                    this.keysT0[index] = k;
+                    this.valuesT0[index] = v;
+                    this.timestampsT0[index] = this.currentTimeMillis;
+                    break;
+                }
+                int tempKey = this.keysT0[index];
+                int tempValue = this.valuesT0[index];
+                this.keysT0[index] = k;
+                this.valuesT0[index] = v;
+                k = tempKey;
+                v = tempValue;
+                currentTable = 1;
+            }
+            else
+            {
+                int index = h1(k);
+                if(!isOccupied(this.occupiedT1, index))
+                {
+                    this.keysT1[index] = k;
+                    this.valuesT1[index] = v;
+                    setOccupied(this.occupiedT1, index);
+                    this.sizeT1++;
+                    break;
+                }
+                if(checkSameHashCode(k))
+                    throw new IllegalArgumentException();
+                if(isKeyExpired(this.timestampsT1[index]) && this.advanceTimeStatus && !this.isResizing)
+                {
+                    this.keysT1[index] = k;
+                    this.valuesT1[index] = v;
+                    this.timestampsT1[index] = this.currentTimeMillis;
+                    break;
+                }
+                int tempKey = this.keysT1[index];
+                int tempValue = this.valuesT1[index];
+                this.keysT1[index] = k;
+                this.valuesT1[index] = v;
+                k = tempKey;
+                v = tempValue;
+                currentTable = 0;
+            }
+
+            swaps++;
+        }
+        if(swaps >= maxSwaps)
+        {
+            resize(this.primeIndex + 1);
+            put(k, v);
+        }
+    }
+
+    private boolean isKeyExpired(long timeStamp) {
+        long expirationTime = 24 * 3600000;
+
+        return this.currentTimeMillis - timeStamp > expirationTime;
+    }
+
+    //a chave só não pode ser colocada se ocupar já as suas duas posições, o que não acontece com chaves diferentes;
+    //colisões de hash entre chaves diferentes resolvem-se com trocas e, no limite, com um resize
+    private boolean checkSameHashCode(int currentKey) {
+        int i0 = h0(currentKey);
+        int i1 = h1(currentKey);
+
+        if (isOccupied(this.occupiedT0, i0) && isOccupied(this.occupiedT1, i1)) {
+            return currentKey == this.keysT0[i0] && currentKey == this.keysT1[i1];
+        }
+
+        return false;
+    }
+
+    public void delete(int k)
+    {
+        int i = indexOfT0(k);
+        if(i >= 0)
+        {
+            clearOccupied(this.occupiedT0, i);
+            this.sizeT0--;
+        }
+        else
+        {
+            i = indexOfT1(k);
+            if(i < 0) return;
+            clearOccupied(this.occupiedT1, i);
+            this.sizeT1--;
+        }
+
+        if(getLoadFactor() < 0.125f && (getCapacity() > CuckooPrimes.primesTable0[0] && getCapacity() > CuckooPrimes.primesTable1[0]))
+            resize(this.primeIndex-1);
+    }
+
+    //devolve uma cópia de todas as chaves da tabela, sem ordem definida
+    public int[] keys()
+    {
+        int[] allKeys = new int[size()];
+        int n = 0;
+        for(int i = 0; i < this.mT0; i++)
+        {
+            if(isOccupied(this.occupiedT0, i)) allKeys[n++] = this.keysT0[i];
+        }
+        for(int i = 0; i < this.mT1; i++)
+        {
+            if(isOccupied(this.occupiedT1, i)) allKeys[n++] = this.keysT1[i];
+        }
+        return allKeys;
+    }
+
+    public void advanceTime(int hours) {
+        this.currentTimeMillis += (hours * 3600000L);
+        this.advanceTimeStatus = true;
+    }
+}
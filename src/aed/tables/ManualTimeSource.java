@@ -0,0 +1,36 @@
+package aed.tables;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//relógio que só avança quando lhe é pedido, usado nos testes para controlar exatamente quando as chaves são esquecidas
+public class ManualTimeSource implements TimeSource {
+
+    private final AtomicLong now;
+
+    public ManualTimeSource(long startMillis)
+    {
+        this.now = new AtomicLong(startMillis);
+    }
+
+    public ManualTimeSource()
+    {
+        this(0);
+    }
+
+    @Override
+    public long currentTimeMillis()
+    {
+        return this.now.get();
+    }
+
+    public void advance(long millis)
+    {
+        if(millis < 0) throw new IllegalArgumentException();
+        this.now.addAndGet(millis);
+    }
+
+    public void set(long millis)
+    {
+        this.now.set(millis);
+    }
+}
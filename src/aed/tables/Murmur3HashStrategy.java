@@ -0,0 +1,26 @@
+package aed.tables;
+
+//funções de hash construídas a partir do finalizador de 64 bits do MurmurHash3 (fmix64).
+//Cada função mistura a impressão digital da chave com um valor diferente derivado da seed
+public class Murmur3HashStrategy implements HashStrategy<Object> {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    static long fmix64(long h)
+    {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public int hash(Object k, int function, long seed)
+    {
+        long functionSeed = fmix64(seed + (function + 1) * GOLDEN_GAMMA);
+        long h = fmix64(HashStrategy.fingerprint(k) ^ functionSeed);
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,400 @@
+package aed.tables;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+
+//versão da ForgettingCuckooHashTable em que as duas tabelas vivem fora do heap, em MemorySegments.
+//Cada posição (slot) de T0/T1 tem um tamanho fixo e guarda, por esta ordem:
+//  hash da chave (int), ocupado (int), timestamp (long), chave serializada, valor serializado
+//As chaves são comparadas byte a byte depois de serializadas, por isso o serializador das chaves tem de ser canónico.
+//O timestamp faz parte do slot e acompanha sempre a chave quando esta é trocada de tabela ou quando há resize.
+//A memória só é libertada com close(); depois disso a tabela não pode voltar a ser usada.
+//Tal como as outras tabelas não concorrentes, esta tabela pertence a uma só thread: a memória vem de arenas confinadas
+//à thread que cria a tabela, que libertam a tabela antiga de cada resize sem sincronizar as outras threads da JVM.
+//Usar a tabela a partir de outra thread lança WrongThreadException.
+public class OffHeapForgettingCuckooHashTable<Key,Value> implements ISymbolTable<Key,Value>, AutoCloseable {
+
+    private static final long HASH_OFFSET = 0;
+    private static final long OCCUPIED_OFFSET = 4;
+    private static final long TIMESTAMP_OFFSET = 8;
+    private static final long KEY_OFFSET = 16;
+
+    private final OffHeapSerializer<Key> keySerializer;
+    private final OffHeapSerializer<Value> valueSerializer;
+    private final long keySize;
+    private final long valueOffset;
+    private final long slotSize;
+
+    private int mT0;
+    private int mT1;
+    private int primeIndex;
+    private int sizeT0;
+    private int sizeT1;
+    private Arena tablesArena;
+    private MemorySegment slotsT0;
+    private MemorySegment slotsT1;
+    //zonas auxiliares, também fora do heap: a chave que está a ser procurada,
+    //o slot que está a ser inserido na cadeia de trocas, e um slot temporário para as trocas
+    private final Arena scratchArena;
+    private final MemorySegment probeKey;
+    private final MemorySegment carry;
+    private final MemorySegment swap;
+    private boolean advanceTimeStatus;
+    private long currentTimeMillis;
+    private boolean isResizing;
+    private boolean closed;
+
+    public OffHeapForgettingCuckooHashTable(int primeIndex, OffHeapSerializer<Key> keySerializer, OffHeapSerializer<Value> valueSerializer)
+    {
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.keySize = keySerializer.byteSize();
+        this.valueOffset = KEY_OFFSET + align(this.keySize);
+        this.slotSize = this.valueOffset + align(valueSerializer.byteSize());
+        this.primeIndex = primeIndex;
+        this.mT0 = CuckooPrimes.primesTable0[primeIndex];
+        this.mT1 = CuckooPrimes.primesTable1[primeIndex];
+        this.sizeT0 = 0;
+        this.sizeT1 = 0;
+        this.tablesArena = Arena.ofConfined();
+        this.slotsT0 = this.tablesArena.allocate(this.mT0 * this.slotSize, Long.BYTES);
+        this.slotsT1 = this.tablesArena.allocate(this.mT1 * this.slotSize, Long.BYTES);
+        this.scratchArena = Arena.ofConfined();
+        this.probeKey = this.scratchArena.allocate(this.keySize, Long.BYTES);
+        this.carry = this.scratchArena.allocate(this.slotSize, Long.BYTES);
+        this.swap = this.scratchArena.allocate(this.slotSize, Long.BYTES);
+        this.advanceTimeStatus = false;
+        this.currentTimeMillis = System.currentTimeMillis();
+        this.isResizing = false;
+        this.closed = false;
+    }
+
+    public OffHeapForgettingCuckooHashTable(OffHeapSerializer<Key> keySerializer, OffHeapSerializer<Value> valueSerializer)
+    {
+        this(0, keySerializer, valueSerializer);
+    }
+
+    private static long align(long bytes)
+    {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static int hash(Object k)
+    {
+        return k.hashCode() & 0x7fffffff;
+    }
+
+    private int h0(int hash) {
+        return hash % this.mT0;
+    }
+
+    private int h1(int hash) {
+        int prime1 = 31;
+        int prime2 = 37;
+        return (int) (((long) (hash % this.mT1) * prime1 + (long) (hash % this.mT1) * prime2) % this.mT1);
+    }
+
+    private boolean isOccupied(MemorySegment table, long offset)
+    {
+        return table.get(ValueLayout.JAVA_INT, offset + OCCUPIED_OFFSET) != 0;
+    }
+
+    //compara a chave guardada no slot com a chave serializada em probeKey
+    private boolean matchesProbeKey(MemorySegment table, long offset, int hash)
+    {
+        return table.get(ValueLayout.JAVA_INT, offset + HASH_OFFSET) == hash &&
+                MemorySegment.mismatch(table, offset + KEY_OFFSET, offset + KEY_OFFSET + this.keySize, this.probeKey, 0, this.keySize) == -1;
+    }
+
+    public int size()
+    {
+        return this.sizeT0 + this.sizeT1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity()
+    {
+        return this.mT0 + this.mT1;
+    }
+
+    public float getLoadFactor()
+    {
+        return (float) size()/getCapacity();
+    }
+
+    //devolve o offset do slot da chave em probeKey na tabela T0, ou -1 se não existir
+    private long offsetOfT0(int hash)
+    {
+        int count = 0;
+        for(int i = h0(hash); isOccupied(this.slotsT0, i * this.slotSize); i = (i+1) % this.mT0)
+        {
+            long offset = i * this.slotSize;
+            if(matchesProbeKey(this.slotsT0, offset, hash))
+                return offset;
+            if(count >= this.mT0)
+                break;
+            count++;
+        }
+        return -1;
+    }
+
+    //devolve o offset do slot da chave em probeKey na tabela T1, ou -1 se não existir
+    private long offsetOfT1(int hash)
+    {
+        int count = 0;
+        for(int i = h1(hash); isOccupied(this.slotsT1, i * this.slotSize); i = (i+1) % this.mT1)
+        {
+            long offset = i * this.slotSize;
+            if(matchesProbeKey(this.slotsT1, offset, hash))
+                return offset;
+            if(count >= this.mT1)
+                break;
+            count++;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(Key k) {
+        int hash = hash(k);
+        this.keySerializer.write(k, this.probeKey, 0);
+        return offsetOfT0(hash) >= 0 || offsetOfT1(hash) >= 0;
+    }
+
+    public Value get(Key k)
+    {
+        int hash = hash(k);
+        this.keySerializer.write(k, this.probeKey, 0);
+
+        long offset = offsetOfT0(hash);
+        if(offset >= 0)
+        {
+            this.slotsT0.set(ValueLayout.JAVA_LONG, offset + TIMESTAMP_OFFSET, this.currentTimeMillis);
+            return this.valueSerializer.read(this.slotsT0, offset + this.valueOffset);
+        }
+        offset = offsetOfT1(hash);
+        if(offset >= 0)
+        {
+            this.slotsT1.set(ValueLayout.JAVA_LONG, offset + TIMESTAMP_OFFSET, this.currentTimeMillis);
+            return this.valueSerializer.read(this.slotsT1, offset + this.valueOffset);
+        }
+        return null;
+    }
+
+    //os slots são copiados diretamente de um MemorySegment para outro, sem passar pelo heap
+    private void resize(int primeIndex)
+    {
+        if(primeIndex < 0 || primeIndex >= CuckooPrimes.primesTable0.length || primeIndex >= CuckooPrimes.primesTable1.length) return;
+
+        Arena oldArena = this.tablesArena;
+        MemorySegment oldT0 = this.slotsT0;
+        MemorySegment oldT1 = this.slotsT1;
+        int oldMT0 = this.mT0;
+        int oldMT1 = this.mT1;
+        boolean wasResizing = this.isResizing;
+
+        this.primeIndex = primeIndex;
+        this.isResizing = true;
+        this.mT0 = CuckooPrimes.primesTable0[primeIndex];
+        this.mT1 = CuckooPrimes.primesTable1[primeIndex];
+        this.tablesArena = Arena.ofConfined();
+        this.slotsT0 = this.tablesArena.allocate(this.mT0 * this.slotSize, Long.BYTES);
+        this.slotsT1 = this.tablesArena.allocate(this.mT1 * this.slotSize, Long.BYTES);
+        this.sizeT0 = 0;
+        this.sizeT1 = 0;
+
+        for(int i = 0; i < oldMT0; i++)
+        {
+            long offset = i * this.slotSize;
+            if(isOccupied(oldT0, offset))
+            {
+                MemorySegment.copy(oldT0, offset, this.carry, 0, this.slotSize);
+                insertCarry();
+            }
+        }
+
+        for(int i = 0; i < oldMT1; i++)
+        {
+            long offset = i * this.slotSize;
+            if(isOccupied(oldT1, offset))
+            {
+                MemorySegment.copy(oldT1, offset, this.carry, 0, this.slotSize);
+                insertCarry();
+            }
+        }
+
+        this.isResizing = wasResizing;
+        oldArena.close();
+    }
+
+    public void put(Key k, Value v)
+    {
+        if(k == null) throw new IllegalArgumentException();
+
+        if(v == null)
+        {
+            delete(k);
+            return;
+        }
+
+        int hash = hash(k);
+        this.keySerializer.write(k, this.probeKey, 0);
+
+        long offset = offsetOfT0(hash);
+        if(offset >= 0)
+        {
+            updateSlot(this.slotsT0, offset, v);
+            return;
+        }
+        offset = offsetOfT1(hash);
+        if(offset >= 0)
+        {
+            updateSlot(this.slotsT1, offset, v);
+            return;
+        }
+
+        if(getLoadFactor() >= 0.5f)
+            resize(this.primeIndex+1);
+
+        if(checkSameHashCode(hash))
+            throw new IllegalArgumentException();
+
+        this.carry.set(ValueLayout.JAVA_INT, HASH_OFFSET, hash);
+        this.carry.set(ValueLayout.JAVA_INT, OCCUPIED_OFFSET, 1);
+        this.carry.set(ValueLayout.JAVA_LONG, TIMESTAMP_OFFSET, this.currentTimeMillis);
+        MemorySegment.copy(this.probeKey, 0, this.carry, KEY_OFFSET, this.keySize);
+        this.valueSerializer.write(v, this.carry, this.valueOffset);
+        insertCarry();
+    }
+
+    private void updateSlot(MemorySegment table, long offset, Value v)
+    {
+        this.valueSerializer.write(v, table, offset + this.valueOffset);
+        table.set(ValueLayout.JAVA_LONG, offset + TIMESTAMP_OFFSET, this.currentTimeMillis);
+    }
+
+    //insere o slot que está em carry, trocando-o com os slots que ocupam a sua posição até encontrar uma posição livre
+    //(ou uma chave esquecida)
+    private void insertCarry()
+    {
+        int currentTable = 0;
+        int swaps = 0;
+        int maxSwaps = 1000;
+
+        while(swaps < maxSwaps) {
+            int hash = this.carry.get(ValueLayout.JAVA_INT, HASH_OFFSET);
+            MemorySegment table = (currentTable == 0) ? this.slotsT0 : this.slotsT1;
+            long offset = ((currentTable == 0) ? h0(hash) : h1(hash)) * this.slotSize;
+
+            if(!isOccupied(table, offset))
+            {
+                MemorySegment.copy(this.carry, 0, table, offset, this.slotSize);
+                if(currentTable == 0)
+                    this.sizeT0++;
+                else
+                    this.sizeT1++;
+                return;
+            }
+            if(isKeyExpired(table.get(ValueLayout.JAVA_LONG, offset + TIMESTAMP_OFFSET)) && this.advanceTimeStatus && !this.isResizing)
+            {
+                //a chave antiga é esquecida e substituída
+                MemorySegment.copy(this.carry, 0, table, offset, this.slotSize);
+                return;
+            }
+            MemorySegment.copy(table, offset, this.swap, 0, this.slotSize);
+            MemorySegment.copy(this.carry, 0, table, offset, this.slotSize);
+            MemorySegment.copy(this.swap, 0, this.carry, 0, this.slotSize);
+            currentTable = (currentTable == 0) ? 1 : 0;
+            swaps++;
+        }
+
+        //o resize volta a usar carry, por isso o slot pendente fica guardado numa zona temporária fora do heap
+        try(Arena pendingArena = Arena.ofConfined())
+        {
+            MemorySegment pending = pendingArena.allocate(this.slotSize, Long.BYTES);
+            MemorySegment.copy(this.carry, 0, pending, 0, this.slotSize);
+            resize(this.primeIndex + 1);
+            MemorySegment.copy(pending, 0, this.carry, 0, this.slotSize);
+        }
+        insertCarry();
+    }
+
+    private boolean isKeyExpired(long timeStamp) {
+        long expirationTime = 24 * 3600000;
+
+        return this.currentTimeMillis - timeStamp > expirationTime;
+    }
+
+    private boolean checkSameHashCode(int hash) {
+        long offsetT0 = h0(hash) * this.slotSize;
+        long offsetT1 = h1(hash) * this.slotSize;
+
+        if (isOccupied(this.slotsT0, offsetT0) && isOccupied(this.slotsT1, offsetT1)) {
+            return hash == this.slotsT0.get(ValueLayout.JAVA_INT, offsetT0 + HASH_OFFSET) &&
+                    hash == this.slotsT1.get(ValueLayout.JAVA_INT, offsetT1 + HASH_OFFSET);
+        }
+
+        return false;
+    }
+
+    public void delete(Key k)
+    {
+        int hash = hash(k);
+        this.keySerializer.write(k, this.probeKey, 0);
+
+        long offset = offsetOfT0(hash);
+        if(offset >= 0)
+        {
+            this.slotsT0.set(ValueLayout.JAVA_INT, offset + OCCUPIED_OFFSET, 0);
+            this.sizeT0--;
+        }
+        else
+        {
+            offset = offsetOfT1(hash);
+            if(offset < 0) return;
+            this.slotsT1.set(ValueLayout.JAVA_INT, offset + OCCUPIED_OFFSET, 0);
+            this.sizeT1--;
+        }
+
+        if(getLoadFactor() < 0.125f && (getCapacity() > CuckooPrimes.primesTable0[0] && getCapacity() > CuckooPrimes.primesTable1[0]))
+            resize(this.primeIndex-1);
+    }
+
+    public Iterable<Key> keys() {
+        List<Key> allKeys = new ArrayList<>();
+        for(int i = 0; i < this.mT0; i++)
+        {
+            long offset = i * this.slotSize;
+            if(isOccupied(this.slotsT0, offset))
+                allKeys.add(this.keySerializer.read(this.slotsT0, offset + KEY_OFFSET));
+        }
+        for(int i = 0; i < this.mT1; i++)
+        {
+            long offset = i * this.slotSize;
+            if(isOccupied(this.slotsT1, offset))
+                allKeys.add(this.keySerializer.read(this.slotsT1, offset + KEY_OFFSET));
+        }
+        return allKeys;
+    }
+
+    public void advanceTime(int hours) {
+        this.currentTimeMillis += (hours * 3600000L);
+        this.advanceTimeStatus = true;
+    }
+
+    //liberta toda a memória fora do heap usada pela tabela
+    @Override
+    public void close()
+    {
+        if(this.closed) return;
+        this.closed = true;
+        this.tablesArena.close();
+        this.scratchArena.close();
+    }
+}
@@ -0,0 +1,94 @@
+package aed.tables;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+//converte chaves ou valores de e para um número fixo de bytes guardados fora da heap do Java.
+//Duas chaves iguais têm de dar sempre exatamente os mesmos bytes, porque a tabela off-heap compara as chaves byte a byte
+public interface OffHeapSerializer<T>
+{
+    //o número de bytes usados por cada elemento serializado
+    int byteSize();
+
+    //escreve o elemento no segmento, a partir do offset dado. Têm de ser escritos exatamente byteSize() bytes
+    void write(T element, MemorySegment segment, long offset);
+
+    //lê um elemento escrito antes no offset dado do segmento
+    T read(MemorySegment segment, long offset);
+
+    OffHeapSerializer<Long> LONG = new OffHeapSerializer<Long>()
+    {
+        public int byteSize() { return Long.BYTES; }
+
+        public void write(Long element, MemorySegment segment, long offset)
+        {
+            segment.set(ValueLayout.JAVA_LONG_UNALIGNED, offset, element);
+        }
+
+        public Long read(MemorySegment segment, long offset)
+        {
+            return segment.get(ValueLayout.JAVA_LONG_UNALIGNED, offset);
+        }
+    };
+
+    OffHeapSerializer<Integer> INTEGER = new OffHeapSerializer<Integer>()
+    {
+        public int byteSize() { return Integer.BYTES; }
+
+        public void write(Integer element, MemorySegment segment, long offset)
+        {
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, offset, element);
+        }
+
+        public Integer read(MemorySegment segment, long offset)
+        {
+            return segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+        }
+    };
+
+    OffHeapSerializer<Double> DOUBLE = new OffHeapSerializer<Double>()
+    {
+        public int byteSize() { return Double.BYTES; }
+
+        public void write(Double element, MemorySegment segment, long offset)
+        {
+            segment.set(ValueLayout.JAVA_DOUBLE_UNALIGNED, offset, element);
+        }
+
+        public Double read(MemorySegment segment, long offset)
+        {
+            return segment.get(ValueLayout.JAVA_DOUBLE_UNALIGNED, offset);
+        }
+    };
+
+    //as strings são guardadas como o seu comprimento em UTF-8 seguido dos bytes em UTF-8, completados com zeros até maxBytes.
+    //Escrever uma string com mais de maxBytes bytes em UTF-8 lança uma IllegalArgumentException
+    static OffHeapSerializer<String> fixedWidthString(int maxBytes)
+    {
+        if(maxBytes <= 0) throw new IllegalArgumentException();
+
+        return new OffHeapSerializer<String>()
+        {
+            public int byteSize() { return Integer.BYTES + maxBytes; }
+
+            public void write(String element, MemorySegment segment, long offset)
+            {
+                byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+                if(bytes.length > maxBytes) throw new IllegalArgumentException();
+
+                segment.set(ValueLayout.JAVA_INT_UNALIGNED, offset, bytes.length);
+                MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, offset + Integer.BYTES, bytes.length);
+                segment.asSlice(offset + Integer.BYTES + bytes.length, maxBytes - bytes.length).fill((byte) 0);
+            }
+
+            public String read(MemorySegment segment, long offset)
+            {
+                int length = segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+                byte[] bytes = new byte[length];
+                MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset + Integer.BYTES, bytes, 0, length);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
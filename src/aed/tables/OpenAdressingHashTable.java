@@ -1,11 +1,9 @@
 package aed.tables;
 
-import java.util.function.Consumer;
-import java.util.function.Function;
+import java.util.ArrayList;
+import java.util.List;
 
-import aed.utils.TimeAnalysisUtils;
-
-public class OpenAdressingHashTable<Key, Value> {
+public class OpenAdressingHashTable<Key, Value> implements ISymbolTable<Key, Value> {
     private static int[] primes = {17, 37, 79, 163, 331, 673, 1361, 2729, 5471, 10949, 21911,
                         43853, 87719, 175447, 350899, 701819, 1403641, 2807303,
                         5614657, 11229331, 22458671, 44917381, 89834777, 179669557};
@@ -26,6 +24,12 @@ public class OpenAdressingHashTable<Key, Value> {
     }
     public OpenAdressingHashTable(){this(0);}
 
+    //creates a table with room for at least the given number of keys, without resizing
+    public static <Key, Value> OpenAdressingHashTable<Key, Value> withExpectedSize(int expectedSize)
+    {
+        return new OpenAdressingHashTable<Key, Value>(determinePrimeIndex((int) Math.ceil(expectedSize / 0.7)));
+    }
+
     private int hash(Key k)
     {
         return (k.hashCode() & 0x7fffffff) % this.m;
@@ -60,7 +64,32 @@ public class OpenAdressingHashTable<Key, Value> {
         this.keys[i] = k;
         this.values[i] = v;
         this.size++;
-        this.loadFactor = this.size/this.m;
+        this.loadFactor = (float) this.size/this.m;
+    }
+
+    public boolean containsKey(Key k)
+    {
+        return get(k) != null;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public Iterable<Key> keys()
+    {
+        List<Key> allKeys = new ArrayList<Key>(this.size);
+        for(int i = 0; i < this.m; i++)
+        {
+            if(this.keys[i] != null) allKeys.add(this.keys[i]);
+        }
+        return allKeys;
     }
 
     private void resize(int primeIndex)
@@ -77,10 +106,10 @@ public class OpenAdressingHashTable<Key, Value> {
         this.keys = aux.keys;
         this.values = aux.values;
         this.m = aux.m;
-        this.loadFactor = this.size/this.m;
+        this.loadFactor = (float) this.size/this.m;
     }
 
-    private void delete(Key k)
+    public void delete(Key k)
     {
         int i = hash(k);
         while(true)
@@ -111,39 +140,11 @@ public class OpenAdressingHashTable<Key, Value> {
             this.put(auxKey,auxValue);
             i = (i+1)%this.m;
         }
-        this.loadFactor = this.size/this.m;
+        this.loadFactor = (float) this.size/this.m;
         if(this.loadFactor < 0.125f)
         resize(this.primeIndex-1);
     }
 
-    public static void main(String[] args) {
-        int iterations = 15;
-
-        // Teste para o método 'put'
-        Function<Integer, OpenAdressingHashTable<Integer, String>> exampleGenerator = (Integer size) -> {
-            OpenAdressingHashTable<Integer, String> table = new OpenAdressingHashTable<>(determinePrimeIndex(size));
-            // Adicionar elementos na tabela usando o método 'put'
-            for (int i = 0; i < size; i++) {
-                table.put(i, "Valor" + i);
-            }
-            return table;
-        };
-
-        Consumer<OpenAdressingHashTable<Integer, String>> testPutMethod = hash -> {
-            // Adicione elementos à tabela usando o método 'put'
-            int maxSize = hash.size;
-            for (int i = 0; i < maxSize; i++) {
-                hash.put(i, "NovoValor" + i);
-            }
-        };
-
-        TimeAnalysisUtils.runDoublingRatioTest(exampleGenerator, testPutMethod, iterations);
-
-        Consumer<OpenAdressingHashTable<Integer, String>> testGetMethod = hash -> hash.get(1);
-
-        TimeAnalysisUtils.runDoublingRatioTest(exampleGenerator, testGetMethod, iterations);
-    }
-
     private static int determinePrimeIndex(int size) {
         int[] primes = OpenAdressingHashTable.primes;
         for (int i = 0; i < primes.length; i++) {
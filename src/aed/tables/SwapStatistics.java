@@ -0,0 +1,115 @@
+package aed.tables;
+
+//estatísticas do número de trocas de cada inserção, em memória constante.
+//As últimas WINDOW contagens são guardadas num buffer circular, para a média e a variação das inserções recentes;
+//cada contagem atualiza também uma média e variância acumuladas (Welford) e um histograma com um bucket por potência
+//de dois, a partir do qual são estimados os percentis. Registar uma contagem é O(1) e não aloca memória
+class SwapStatistics {
+
+    static final int WINDOW = 100;
+    //o bucket 0 conta as inserções sem trocas, o bucket i > 0 as que fizeram de 2^(i-1) a 2^i - 1 trocas
+    private static final int BUCKETS = 33;
+
+    private final int[] window;
+    private int next;
+    private int windowCount;
+    private long windowSum;
+
+    private long count;
+    private double mean;
+    private double m2;
+    private int max;
+    private final long[] histogram;
+
+    SwapStatistics()
+    {
+        this.window = new int[WINDOW];
+        this.histogram = new long[BUCKETS];
+    }
+
+    void record(int swaps)
+    {
+        if(this.windowCount == WINDOW)
+            this.windowSum -= this.window[this.next];
+        else
+            this.windowCount++;
+        this.window[this.next] = swaps;
+        this.windowSum += swaps;
+        this.next = (this.next + 1 == WINDOW) ? 0 : this.next + 1;
+
+        this.count++;
+        double delta = swaps - this.mean;
+        this.mean += delta / this.count;
+        this.m2 += delta * (swaps - this.mean);
+        this.max = Math.max(this.max, swaps);
+        this.histogram[32 - Integer.numberOfLeadingZeros(swaps)]++;
+    }
+
+    boolean isEmpty()
+    {
+        return this.count == 0;
+    }
+
+    //média das últimas WINDOW contagens
+    float windowAverage()
+    {
+        if(this.windowCount == 0)
+            return 0.0f;
+        return (float) this.windowSum / this.windowCount;
+    }
+
+    //variância das últimas WINDOW contagens, calculada da mais recente para a mais antiga em float, como sempre foi,
+    //para que os valores não mudem
+    float windowVariation()
+    {
+        if(this.windowCount == 0)
+            return 0.0f;
+        float sum = 0;
+        float average = windowAverage();
+        int i = this.next;
+        for(int n = 0; n < this.windowCount; n++)
+        {
+            i = (i == 0) ? WINDOW - 1 : i - 1;
+            float difference = this.window[i] - average;
+            sum += (difference * difference);
+        }
+        return sum / this.windowCount;
+    }
+
+    long count()
+    {
+        return this.count;
+    }
+
+    double mean()
+    {
+        return this.mean;
+    }
+
+    double variance()
+    {
+        return (this.count == 0) ? 0.0 : this.m2 / this.count;
+    }
+
+    int max()
+    {
+        return this.max;
+    }
+
+    //limite superior do bucket do histograma que contém a fração dada (de 0 a 1) das contagens, limitado ao máximo
+    int percentile(double p)
+    {
+        if(p < 0 || p > 1) throw new IllegalArgumentException();
+        if(this.count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * this.count));
+        long seen = 0;
+        for(int b = 0; b < BUCKETS; b++)
+        {
+            seen += this.histogram[b];
+            if(seen >= rank)
+                return (b == 0) ? 0 : (int) Math.min((1L << b) - 1, this.max);
+        }
+        return this.max;
+    }
+}
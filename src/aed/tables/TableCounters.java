@@ -0,0 +1,40 @@
+package aed.tables;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//os contadores usados por ForgettingCuckooHashTable.getStats(). São LongAdders para que uma thread de monitorização
+//(por exemplo através do MBean) os possa ler enquanto a tabela está a ser usada, e para que atualizá-los continue
+//barato. Uma tabela partilha os seus contadores com a tabela para a qual está a migrar
+class TableCounters {
+
+    final LongAdder gets = new LongAdder();
+    final LongAdder hits = new LongAdder();
+    final LongAdder puts = new LongAdder();
+    final LongAdder updates = new LongAdder();
+    final LongAdder deletes = new LongAdder();
+    final LongAdder forgotten = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+    final LongAdder kicks = new LongAdder();
+    final LongAdder insertFailures = new LongAdder();
+    final LongAdder resizesUp = new LongAdder();
+    final LongAdder resizesDown = new LongAdder();
+    final LongAdder rehashes = new LongAdder();
+    final LongAdder resizeNanos = new LongAdder();
+
+    void reset()
+    {
+        this.gets.reset();
+        this.hits.reset();
+        this.puts.reset();
+        this.updates.reset();
+        this.deletes.reset();
+        this.forgotten.reset();
+        this.evictions.reset();
+        this.kicks.reset();
+        this.insertFailures.reset();
+        this.resizesUp.reset();
+        this.resizesDown.reset();
+        this.rehashes.reset();
+        this.resizeNanos.reset();
+    }
+}
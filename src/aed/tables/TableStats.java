@@ -0,0 +1,160 @@
+package aed.tables;
+
+//fotografia dos contadores e da ocupação de uma ForgettingCuckooHashTable, tirada por getStats().
+//Os contadores começam a 0 quando a tabela é criada, ou quando é chamado resetStats()
+public final class TableStats {
+
+    private final long gets;
+    private final long hits;
+    private final long puts;
+    private final long updates;
+    private final long deletes;
+    private final long forgotten;
+    private final long evictions;
+    private final long kicks;
+    private final long insertFailures;
+    private final long resizesUp;
+    private final long resizesDown;
+    private final long rehashes;
+    private final long resizeNanos;
+    private final int sizeT0;
+    private final int sizeT1;
+    private final int stashSize;
+    private final int capacity;
+
+    TableStats(TableCounters counters, int sizeT0, int sizeT1, int stashSize, int capacity)
+    {
+        this.gets = counters.gets.sum();
+        this.hits = counters.hits.sum();
+        this.puts = counters.puts.sum();
+        this.updates = counters.updates.sum();
+        this.deletes = counters.deletes.sum();
+        this.forgotten = counters.forgotten.sum();
+        this.evictions = counters.evictions.sum();
+        this.kicks = counters.kicks.sum();
+        this.insertFailures = counters.insertFailures.sum();
+        this.resizesUp = counters.resizesUp.sum();
+        this.resizesDown = counters.resizesDown.sum();
+        this.rehashes = counters.rehashes.sum();
+        this.resizeNanos = counters.resizeNanos.sum();
+        this.sizeT0 = sizeT0;
+        this.sizeT1 = sizeT1;
+        this.stashSize = stashSize;
+        this.capacity = capacity;
+    }
+
+    public long getGets()
+    {
+        return this.gets;
+    }
+
+    public long getHits()
+    {
+        return this.hits;
+    }
+
+    public long getMisses()
+    {
+        return this.gets - this.hits;
+    }
+
+    //hits / gets, ou 0 se não houve gets
+    public double getHitRate()
+    {
+        return (this.gets == 0) ? 0.0 : (double) this.hits / this.gets;
+    }
+
+    public long getPuts()
+    {
+        return this.puts;
+    }
+
+    //puts (e replace, compute, merge) que mudaram o valor de uma chave que já estava na tabela
+    public long getUpdates()
+    {
+        return this.updates;
+    }
+
+    public long getDeletes()
+    {
+        return this.deletes;
+    }
+
+    //chaves esquecidas porque uma inserção as encontrou expiradas no seu caminho, ou porque a roda temporal
+    //as encontrou expiradas ou com o ttl terminado
+    public long getForgotten()
+    {
+        return this.forgotten;
+    }
+
+    //chaves removidas para manter a tabela dentro do tamanho ou peso máximo, incluindo chaves novas que não foram admitidas
+    public long getEvictions()
+    {
+        return this.evictions;
+    }
+
+    //número total de trocas feitas pelas inserções
+    public long getKicks()
+    {
+        return this.kicks;
+    }
+
+    //inserções cuja cadeia de trocas falhou e que precisaram de um rehash ou de um resize
+    public long getInsertFailures()
+    {
+        return this.insertFailures;
+    }
+
+    public long getResizesUp()
+    {
+        return this.resizesUp;
+    }
+
+    public long getResizesDown()
+    {
+        return this.resizesDown;
+    }
+
+    //reconstruções com o mesmo tamanho e uma nova seed de hash
+    public long getRehashes()
+    {
+        return this.rehashes;
+    }
+
+    //tempo gasto nos resizes e rehashes feitos de uma vez; as migrações incrementais estão espalhadas pelas operações
+    //e não são incluídas
+    public long getResizeNanos()
+    {
+        return this.resizeNanos;
+    }
+
+    public int getSizeT0()
+    {
+        return this.sizeT0;
+    }
+
+    public int getSizeT1()
+    {
+        return this.sizeT1;
+    }
+
+    public int getStashSize()
+    {
+        return this.stashSize;
+    }
+
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TableStats{gets=" + this.gets + ", hits=" + this.hits + ", puts=" + this.puts + ", updates=" + this.updates
+                + ", deletes=" + this.deletes + ", forgotten=" + this.forgotten + ", evictions=" + this.evictions + ", kicks=" + this.kicks
+                + ", insertFailures=" + this.insertFailures + ", resizesUp=" + this.resizesUp + ", resizesDown=" + this.resizesDown
+                + ", rehashes=" + this.rehashes + ", resizeNanos=" + this.resizeNanos + ", sizeT0=" + this.sizeT0
+                + ", sizeT1=" + this.sizeT1 + ", stashSize=" + this.stashSize + ", capacity=" + this.capacity + "}";
+    }
+}
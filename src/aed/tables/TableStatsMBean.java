@@ -0,0 +1,44 @@
+package aed.tables;
+
+//interface de gestão de uma ForgettingCuckooHashTable registada com registerMBean. Cada atributo é lido
+//de uma nova fotografia das estatísticas da tabela
+public interface TableStatsMBean
+{
+    long getGets();
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    long getPuts();
+
+    long getUpdates();
+
+    long getDeletes();
+
+    long getForgotten();
+
+    long getEvictions();
+
+    long getKicks();
+
+    long getInsertFailures();
+
+    long getResizesUp();
+
+    long getResizesDown();
+
+    long getResizeNanos();
+
+    int getSizeT0();
+
+    int getSizeT1();
+
+    int getStashSize();
+
+    int getCapacity();
+
+    void resetStats();
+}
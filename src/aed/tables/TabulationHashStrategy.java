@@ -0,0 +1,46 @@
+package aed.tables;
+
+import java.util.SplittableRandom;
+
+//tabulation hashing simples: os 8 bytes da impressão digital da chave indexam 8 tabelas de números aleatórios, e os
+//resultados são combinados com xor. Cada função tem o seu conjunto de tabelas. A seed da tabela de cuckoo hashing
+//é combinada com xor com a impressão digital antes da consulta, para que uma nova seed dê uma nova função sem
+//gerar de novo as tabelas
+public class TabulationHashStrategy implements HashStrategy<Object> {
+
+    private final int[][][] tables;
+
+    public TabulationHashStrategy(long tablesSeed)
+    {
+        SplittableRandom random = new SplittableRandom(tablesSeed);
+        this.tables = new int[2][8][256];
+        for(int function = 0; function < 2; function++)
+        {
+            for(int b = 0; b < 8; b++)
+            {
+                for(int i = 0; i < 256; i++)
+                {
+                    this.tables[function][b][i] = random.nextInt();
+                }
+            }
+        }
+    }
+
+    public TabulationHashStrategy()
+    {
+        this(0x5DEECE66DL);
+    }
+
+    @Override
+    public int hash(Object k, int function, long seed)
+    {
+        long x = HashStrategy.fingerprint(k) ^ seed;
+        int[][] t = this.tables[function];
+        int h = 0;
+        for(int b = 0; b < 8; b++)
+        {
+            h ^= t[b][(int) (x >>> (b * 8)) & 0xff];
+        }
+        return h;
+    }
+}
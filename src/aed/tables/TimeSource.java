@@ -0,0 +1,13 @@
+package aed.tables;
+
+//o relógio usado pelas tabelas com esquecimento para decidir quando uma chave não é usada há demasiado tempo.
+//As implementações têm de ser baratas de ler, porque uma tabela lê o relógio uma vez por operação
+@FunctionalInterface
+public interface TimeSource
+{
+    //o tempo atual, em milissegundos
+    long currentTimeMillis();
+
+    //lê o relógio do sistema em cada chamada
+    TimeSource SYSTEM = System::currentTimeMillis;
+}
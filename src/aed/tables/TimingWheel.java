@@ -0,0 +1,152 @@
+package aed.tables;
+
+import java.util.List;
+
+//roda temporal hierárquica usada pela ForgettingCuckooHashTable para encontrar as chaves cujo prazo já passou.
+//O nível i tem 64 buckets de 2^SHIFTS[i] milissegundos cada (cerca de 1s, 65s, 70min e 3 dias), e cada entrada
+//fica no nível mais fino cujo alcance ainda cobre o seu prazo. Quando o tempo avança, só são visitados os buckets
+//que foram ultrapassados: as entradas cujo prazo passou são entregues à tabela, e as outras descem para um nível mais fino.
+//Cada chave tem no máximo uma entrada, guardada pela tabela ao lado da própria chave, por isso uma entrada pode ser
+//movida ou cancelada em O(1)
+class TimingWheel<Key> {
+
+    private static final int[] SHIFTS = {10, 16, 22, 28};
+    private static final int BUCKETS = 64;
+    private static final int MASK = BUCKETS - 1;
+
+    static final class Node<Key> {
+        final Key key;
+        long deadline;
+        //true se o prazo é um ttl dado no put, false se é o fim da janela de esquecimento
+        boolean ttl;
+        Node<Key> prev;
+        Node<Key> next;
+
+        Node(Key key)
+        {
+            this.key = key;
+        }
+    }
+
+    private final Node<Key>[][] wheel;
+    private long time;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long now)
+    {
+        this.wheel = (Node<Key>[][]) new Node<?>[SHIFTS.length][BUCKETS];
+        for(int i = 0; i < SHIFTS.length; i++)
+        {
+            for(int j = 0; j < BUCKETS; j++)
+            {
+                //cada bucket é uma lista circular com sentinela
+                Node<Key> sentinel = new Node<Key>(null);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                this.wheel[i][j] = sentinel;
+            }
+        }
+        this.time = now;
+    }
+
+    //agenda a entrada. Um ttl substitui sempre o prazo atual; um prazo da janela de esquecimento só substitui
+    //um ttl, porque a tabela verifica o timestamp real da chave quando o prazo da entrada chega
+    void schedule(Node<Key> node, long deadline, boolean ttl)
+    {
+        if(node.prev != null)
+        {
+            if(!ttl && !node.ttl)
+                return;
+            unlink(node);
+        }
+        node.deadline = deadline;
+        node.ttl = ttl;
+        link(node);
+    }
+
+    //remove a entrada da roda; uma entrada que não está agendada (ou que já foi entregue à tabela) é ignorada
+    void cancel(Node<Key> node)
+    {
+        unlink(node);
+    }
+
+    //avança a roda até now, e junta a due (retirando-as da roda) todas as entradas cujo prazo já passou
+    void advance(long now, List<Node<Key>> due)
+    {
+        long previous = this.time;
+        if(now <= previous)
+            return;
+        this.time = now;
+
+        for(int i = 0; i < SHIFTS.length; i++)
+        {
+            long previousTicks = previous >>> SHIFTS[i];
+            long delta = (now >>> SHIFTS[i]) - previousTicks;
+            if(delta <= 0)
+                break;
+            expire(i, previousTicks, delta, due);
+        }
+    }
+
+    private void expire(int level, long previousTicks, long delta, List<Node<Key>> due)
+    {
+        int start = (int) (previousTicks & MASK);
+        int steps = (int) Math.min(delta + 1, BUCKETS);
+        for(int i = start; i < start + steps; i++)
+        {
+            Node<Key> sentinel = this.wheel[level][i & MASK];
+            Node<Key> node = sentinel.next;
+            //a lista é separada do bucket antes de ser percorrida, porque as entradas cujo prazo ainda não passou voltam
+            //a ser ligadas, possivelmente a este mesmo bucket
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            while(node != sentinel)
+            {
+                Node<Key> next = node.next;
+                node.prev = null;
+                node.next = null;
+                if(node.deadline <= this.time)
+                    due.add(node);
+                else
+                    link(node);
+                node = next;
+            }
+        }
+    }
+
+    private void link(Node<Key> node)
+    {
+        Node<Key> sentinel = findBucket(node.deadline);
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private void unlink(Node<Key> node)
+    {
+        if(node.prev == null)
+            return;
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    //o nível mais fino cujo alcance cobre o prazo; os prazos para lá do último nível vão para o seu bucket mais
+    //distante, e são movidos de novo quando esse bucket é visitado
+    private Node<Key> findBucket(long deadline)
+    {
+        //um prazo que já passou vai para o bucket atual, que é visitado no próximo avanço
+        long when = Math.max(deadline, this.time);
+        long duration = when - this.time;
+        for(int i = 0; i < SHIFTS.length - 1; i++)
+        {
+            if(duration < (1L << SHIFTS[i + 1]))
+                return this.wheel[i][(int) ((when >>> SHIFTS[i]) & MASK)];
+        }
+        int last = SHIFTS.length - 1;
+        long maxDeadline = this.time + ((long) (BUCKETS - 1) << SHIFTS[last]);
+        return this.wheel[last][(int) ((Math.min(when, maxDeadline) >>> SHIFTS[last]) & MASK)];
+    }
+}
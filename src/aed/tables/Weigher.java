@@ -0,0 +1,11 @@
+package aed.tables;
+
+//calcula quanto do orçamento de uma tabela uma entrada usa, por exemplo uma estimativa do seu tamanho em bytes.
+//O peso de uma entrada não pode mudar enquanto ela está na tabela, porque a tabela só pesa uma entrada
+//quando ela é inserida, atualizada ou removida
+@FunctionalInterface
+public interface Weigher<Key,Value>
+{
+    //o peso da entrada, nunca negativo
+    int weigh(Key k, Value v);
+}
@@ -0,0 +1,111 @@
+package aed.tables.tests;
+
+import aed.tables.ClockForgettingCuckooHashTable;
+import aed.tables.ManualTimeSource;
+
+import java.util.*;
+
+public class ClockCuckooHashTableTests {
+
+    private static final String info = "TEST INFO: ";
+
+    //creates a random generator with a specific seed
+    private static final Random pseudoRandom = new Random(5789);
+
+    public static List<Runnable> getAllTests()
+    {
+        ArrayList<Runnable> tests = new ArrayList<Runnable>();
+        tests.add(ClockCuckooHashTableTests::test1);
+        tests.add(ClockCuckooHashTableTests::test2);
+
+        return tests;
+    }
+
+    public static void test1()
+    {
+        System.out.println(info + "Comparando a tabela com idades CLOCK com um HashMap, com resize para cima e para baixo");
+        ClockForgettingCuckooHashTable<Integer,Integer> hashTable = new ClockForgettingCuckooHashTable<Integer,Integer>();
+        HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+
+        for(int i = 0; i < 20000; i++)
+        {
+            int key = pseudoRandom.nextInt(5000);
+            if(pseudoRandom.nextInt(4) == 0)
+            {
+                hashTable.delete(key);
+                expected.remove(key);
+            }
+            else
+            {
+                hashTable.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        boolean equal = hashTable.size() == expected.size();
+        for(int key = 0; key < 5000; key++)
+        {
+            equal &= Objects.equals(hashTable.get(key), expected.get(key));
+        }
+        System.out.println("same contents as HashMap: " + equal);
+
+        for(int key = 0; key < 5000; key++)
+        {
+            hashTable.delete(key);
+        }
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+    }
+
+    public static void test2()
+    {
+        System.out.println(info + "Testando o esquecimento: só as chaves não usadas durante a janela são esquecidas");
+        ManualTimeSource clock = new ManualTimeSource(1000000);
+        ClockForgettingCuckooHashTable<Integer,Integer> hashTable = new ClockForgettingCuckooHashTable<Integer,Integer>(8, clock, 7000);
+        for(int i = 0; i < 1000; i++)
+        {
+            hashTable.put(i, i);
+        }
+        clock.advance(5000);
+        for(int i = 0; i < 100; i++)
+        {
+            hashTable.get(i);
+        }
+        clock.advance(5000);
+        int inserted = 1000;
+        for(int i = 1; i < 1000; i++)
+        {
+            hashTable.put(-i, i);
+            inserted++;
+        }
+        boolean recentKeysKept = true;
+        for(int i = 0; i < 100; i++)
+        {
+            recentKeysKept &= hashTable.get(i) != null;
+        }
+        System.out.println("recently read keys kept: " + recentKeysKept);
+        System.out.println("old keys forgotten: " + (hashTable.size() < inserted));
+
+        System.out.println(info + "com advanceTime, como na ForgettingCuckooHashTable");
+        ClockForgettingCuckooHashTable<Integer,Integer> manual = new ClockForgettingCuckooHashTable<Integer,Integer>(8);
+        for(int i = 0; i < 1000; i++)
+        {
+            manual.put(i, i);
+        }
+        manual.advanceTime(25);
+        for(int i = 0; i < 100; i++)
+        {
+            manual.get(i);
+        }
+        for(int i = 1; i < 1000; i++)
+        {
+            manual.put(-i, i);
+        }
+        recentKeysKept = true;
+        for(int i = 0; i < 100; i++)
+        {
+            recentKeysKept &= manual.get(i) != null;
+        }
+        System.out.println("recently read keys kept: " + recentKeysKept);
+        System.out.println("old keys forgotten: " + (manual.size() < 1999));
+    }
+}
@@ -0,0 +1,191 @@
+package aed.tables.tests;
+
+import aed.tables.ConcurrentForgettingCuckooHashTable;
+import aed.tables.ManualTimeSource;
+
+import java.util.*;
+
+public class ConcurrentCuckooHashTableTests {
+
+    private static final String info = "TEST INFO: ";
+    private static final int THREADS = 8;
+    private static final int KEYS_PER_THREAD = 20000;
+
+    public static List<Runnable> getAllTests()
+    {
+        ArrayList<Runnable> tests = new ArrayList<Runnable>();
+        tests.add(ConcurrentCuckooHashTableTests::test1);
+        tests.add(ConcurrentCuckooHashTableTests::test2);
+        tests.add(ConcurrentCuckooHashTableTests::test3);
+        tests.add(ConcurrentCuckooHashTableTests::test4);
+
+        return tests;
+    }
+
+    //corre a mesma tarefa em várias threads, e espera que todas terminem
+    private static void runInThreads(int threads, java.util.function.IntConsumer task)
+    {
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++)
+        {
+            final int id = t;
+            workers[t] = new Thread(() -> task.accept(id));
+            workers[t].start();
+        }
+        for(Thread worker : workers)
+        {
+            try
+            {
+                worker.join();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static void test1()
+    {
+        System.out.println(info + "Várias threads a inserir chaves diferentes ao mesmo tempo, com resize");
+        ConcurrentForgettingCuckooHashTable<Integer,Integer> hashTable = new ConcurrentForgettingCuckooHashTable<Integer,Integer>(0, 16);
+
+        runInThreads(THREADS, id -> {
+            for(int i = 0; i < KEYS_PER_THREAD; i++)
+            {
+                int key = id * KEYS_PER_THREAD + i;
+                hashTable.put(key, key * 2);
+            }
+        });
+        System.out.println("Size: " + hashTable.size());
+
+        boolean allFound = true;
+        for(int key = 0; key < THREADS * KEYS_PER_THREAD; key++)
+        {
+            Integer value = hashTable.get(key);
+            allFound &= value != null && value == key * 2;
+        }
+        System.out.println("all keys found: " + allFound);
+
+        runInThreads(THREADS, id -> {
+            for(int i = 0; i < KEYS_PER_THREAD; i += 2)
+            {
+                hashTable.delete(id * KEYS_PER_THREAD + i);
+            }
+        });
+        System.out.println("Size after deleting half: " + hashTable.size());
+        System.out.println("Contains key 0: " + hashTable.containsKey(0));
+        System.out.println("Contains key 1: " + hashTable.containsKey(1));
+    }
+
+    public static void test2()
+    {
+        System.out.println(info + "Leitores e escritores ao mesmo tempo: chaves que nunca são apagadas têm de ser sempre encontradas");
+        ConcurrentForgettingCuckooHashTable<Integer,Integer> hashTable = new ConcurrentForgettingCuckooHashTable<Integer,Integer>();
+        for(int key = 0; key < 1000; key++)
+        {
+            hashTable.put(key, key);
+        }
+
+        boolean[] missing = new boolean[THREADS];
+        runInThreads(THREADS, id -> {
+            Random random = new Random(id);
+            for(int i = 0; i < KEYS_PER_THREAD; i++)
+            {
+                if(id % 2 == 0)
+                {
+                    int key = 1000 + random.nextInt(50000);
+                    if(random.nextBoolean())
+                        hashTable.put(key, key);
+                    else
+                        hashTable.delete(key);
+                }
+                else
+                {
+                    int key = random.nextInt(1000);
+                    Integer value = hashTable.get(key);
+                    if(value == null || value != key)
+                        missing[id] = true;
+                }
+            }
+        });
+
+        boolean anyMissing = false;
+        for(boolean m : missing)
+        {
+            anyMissing |= m;
+        }
+        System.out.println("stable keys always found: " + !anyMissing);
+    }
+
+    public static void test3()
+    {
+        System.out.println(info + "Leituras otimistas (sem locks) enquanto os escritores fazem cadeias de trocas e resizes");
+        ConcurrentForgettingCuckooHashTable<Integer,Integer> hashTable = new ConcurrentForgettingCuckooHashTable<Integer,Integer>(0, 4);
+        hashTable.setOptimisticReads(true);
+        for(int key = 0; key < 1000; key++)
+        {
+            hashTable.put(key, key);
+        }
+
+        boolean[] missing = new boolean[THREADS];
+        runInThreads(THREADS, id -> {
+            Random random = new Random(id);
+            for(int i = 0; i < 5 * KEYS_PER_THREAD; i++)
+            {
+                if(id % 4 == 0)
+                {
+                    int key = 1000 + random.nextInt(100000);
+                    if(random.nextInt(3) != 0)
+                        hashTable.put(key, key);
+                    else
+                        hashTable.delete(key);
+                }
+                else
+                {
+                    int key = random.nextInt(1000);
+                    Integer value = hashTable.get(key);
+                    if(value == null || value != key || !hashTable.containsKey(key))
+                        missing[id] = true;
+                }
+            }
+        });
+
+        boolean anyMissing = false;
+        for(boolean m : missing)
+        {
+            anyMissing |= m;
+        }
+        System.out.println("no false negatives: " + !anyMissing);
+        System.out.println("get -1: " + hashTable.get(-1));
+    }
+
+    public static void test4()
+    {
+        System.out.println(info + "Testando o esquecimento com um relógio manual e uma janela de 1 segundo");
+        ManualTimeSource clock = new ManualTimeSource(1000000);
+        ConcurrentForgettingCuckooHashTable<Integer,Integer> hashTable =
+                new ConcurrentForgettingCuckooHashTable<Integer,Integer>(4, clock, 1000);
+        System.out.println("forgetting window: " + hashTable.getForgettingWindowMillis() + "ms");
+
+        //com as tabelas de 163 e 167 posições, estas três chaves têm as mesmas duas posições
+        int step = 163 * 167;
+        hashTable.put(5, 0);
+        hashTable.put(5 + step, 1);
+        clock.advance(600);
+        hashTable.get(5);
+        clock.advance(600);
+        hashTable.put(5 + 2 * step, 2);
+        System.out.println("Size/Capacity: " + hashTable.size() + "/" + hashTable.getCapacity());
+        System.out.println("recently read key kept: " + hashTable.get(5));
+        System.out.println("old key forgotten: " + (hashTable.get(5 + step) == null));
+        System.out.println("new key: " + hashTable.get(5 + 2 * step));
+
+        System.out.println(info + "sem avançar o relógio nenhuma chave é esquecida, e a tabela cresce");
+        hashTable = new ConcurrentForgettingCuckooHashTable<Integer,Integer>(4, new ManualTimeSource(), 1000);
+        hashTable.put(5, 0);
+        hashTable.put(5 + step, 1);
+        hashTable.put(5 + 2 * step, 2);
+        System.out.println("Size/Capacity: " + hashTable.size() + "/" + hashTable.getCapacity());
+    }
+}
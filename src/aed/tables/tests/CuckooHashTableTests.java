@@ -1,10 +1,29 @@
 package aed.tables.tests;
 
+import aed.tables.CachedTimeSource;
 import aed.tables.ForgettingCuckooHashTable;
+import aed.tables.HashStrategy;
+import aed.tables.ManualTimeSource;
+import aed.tables.Murmur3HashStrategy;
+import aed.tables.TableStats;
+import aed.tables.TabulationHashStrategy;
 import aed.utils.TimeAnalysisUtils;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
 public class CuckooHashTableTests {
 
     private static final int LARGE = 150000;
@@ -50,6 +69,25 @@ public class CuckooHashTableTests {
         tests.add(CuckooHashTableTests::test15);
         tests.add(CuckooHashTableTests::test16);
         tests.add(CuckooHashTableTests::test17);
+        tests.add(CuckooHashTableTests::test18);
+        tests.add(CuckooHashTableTests::test19);
+        tests.add(CuckooHashTableTests::test20);
+        tests.add(CuckooHashTableTests::test21);
+        tests.add(CuckooHashTableTests::test22);
+        tests.add(CuckooHashTableTests::test23);
+        tests.add(CuckooHashTableTests::test24);
+        tests.add(CuckooHashTableTests::test25);
+        tests.add(CuckooHashTableTests::test26);
+        tests.add(CuckooHashTableTests::test27);
+        tests.add(CuckooHashTableTests::test28);
+        tests.add(CuckooHashTableTests::test29);
+        tests.add(CuckooHashTableTests::test30);
+        tests.add(CuckooHashTableTests::test31);
+        tests.add(CuckooHashTableTests::test32);
+        tests.add(CuckooHashTableTests::test33);
+        tests.add(CuckooHashTableTests::test34);
+        tests.add(CuckooHashTableTests::test35);
+        tests.add(CuckooHashTableTests::test36);
 
         return tests;
     }
@@ -529,6 +567,830 @@ public class CuckooHashTableTests {
     }
 
 
+    public static void test18()
+    {
+        System.out.println(info + "Testando tabelas com buckets de 4 posições e fator de carga máximo de 0.9");
+        ForgettingCuckooHashTable<String,Integer> hashTable = new ForgettingCuckooHashTable<String,Integer>(0, 4, 0.9f);
+        System.out.println("Bucket size: " + hashTable.getBucketSize() + ", max load factor: " + hashTable.getMaxLoadFactor());
+
+        String[] keysExamples = new String[1500];
+        for(int i = 0; i < 1500; i++)
+        {
+            keysExamples[i] = generateRandomString(7);
+            hashTable.put(keysExamples[i], i);
+        }
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+        System.out.println("Load factor above 0.5: " + (hashTable.getLoadFactor() > 0.5f));
+
+        boolean allFound = true;
+        for(int i = 0; i < 1500; i++)
+        {
+            allFound &= hashTable.get(keysExamples[i]) == i;
+        }
+        System.out.println("all keys found: " + allFound);
+        System.out.println("equal sets (order does not matter): " + equivalentSets(hashTable.keys(), keysExamples));
+
+        for(int i = 0; i < 1400; i++)
+        {
+            hashTable.delete(keysExamples[i]);
+        }
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+        System.out.println("Contains key " + keysExamples[0] + ": " + hashTable.containsKey(keysExamples[0]));
+        System.out.println("get " + keysExamples[1499] + ": " + hashTable.get(keysExamples[1499]));
+    }
+
+
+    public static void test19()
+    {
+        System.out.println(info + "Testando o resize incremental, com a tabela antiga e a nova ativas ao mesmo tempo");
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(0);
+        hashTable.setIncrementalResize(true);
+        HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+
+        boolean sawMigration = false;
+        boolean equal = true;
+        for(int i = 0; i < 20000; i++)
+        {
+            int key = pseudoRandom.nextInt(3000);
+            int op = pseudoRandom.nextInt(4);
+            if(op == 0)
+            {
+                hashTable.delete(key);
+                expected.remove(key);
+            }
+            else if(op == 1)
+            {
+                equal &= Objects.equals(hashTable.get(key), expected.get(key));
+            }
+            else
+            {
+                hashTable.put(key, i);
+                expected.put(key, i);
+            }
+            sawMigration |= hashTable.isMigrating();
+            equal &= hashTable.size() == expected.size();
+        }
+        System.out.println("migration observed: " + sawMigration);
+        System.out.println("same contents as HashMap during migration: " + equal);
+
+        System.out.println(info + "Os timestamps acompanham as chaves durante a migração");
+        hashTable = new ForgettingCuckooHashTable<Integer,Integer>(0, 4, 0.9f);
+        hashTable.setIncrementalResize(true);
+        int next = 0;
+        for(; !hashTable.isMigrating(); next++)
+        {
+            hashTable.put(next, next);
+        }
+        hashTable.advanceTime(25);
+        for(int i = 0; i < 8; i++)
+        {
+            hashTable.get(i);
+        }
+        for(; hashTable.isMigrating(); next++)
+        {
+            hashTable.put(next, next);
+        }
+        int inserted = next;
+        hashTable.advanceTime(2);
+        for(int i = 1; i < 2000; i++)
+        {
+            hashTable.put(-i, i);
+            inserted++;
+        }
+        boolean recentKeysKept = true;
+        for(int i = 0; i < 8; i++)
+        {
+            recentKeysKept &= hashTable.get(i) != null;
+        }
+        System.out.println("recently read keys kept: " + recentKeysKept);
+        System.out.println("old keys forgotten: " + (hashTable.size() < inserted));
+    }
+
+
+    public static void test20()
+    {
+        System.out.println(info + "Testando a inserção com procura em largura do caminho de trocas");
+        int[] bucketSizes = {1, 4};
+        float[] maxLoadFactors = {0.5f, 0.95f};
+        for(int b = 0; b < bucketSizes.length; b++)
+        {
+            ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(0, bucketSizes[b], maxLoadFactors[b]);
+            hashTable.setBfsInsertion(true);
+            hashTable.setSwapLogging(true);
+            HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+
+            for(int i = 0; i < 20000; i++)
+            {
+                int key = pseudoRandom.nextInt(5000);
+                if(pseudoRandom.nextInt(4) == 0)
+                {
+                    hashTable.delete(key);
+                    expected.remove(key);
+                }
+                else
+                {
+                    hashTable.put(key, i);
+                    expected.put(key, i);
+                }
+            }
+
+            boolean equal = hashTable.size() == expected.size();
+            for(int key = 0; key < 5000; key++)
+            {
+                equal &= Objects.equals(hashTable.get(key), expected.get(key));
+            }
+            System.out.println("bucket size " + bucketSizes[b] + ", same contents as HashMap: " + equal);
+            System.out.println("bucket size " + bucketSizes[b] + ", swap average below 2: " + (hashTable.getSwapAverage() < 2.0f));
+        }
+    }
+
+
+    public static void test21()
+    {
+        System.out.println(info + "Testando o stash: chaves que não cabem em T0/T1 não obrigam a um resize");
+        //0, 77 e 154 têm as mesmas posições em T0 e em T1 numa tabela de tamanho 7 + 11
+        ForgettingCuckooHashTable<Integer,Integer> withoutStash = new ForgettingCuckooHashTable<Integer,Integer>(0);
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(0);
+        hashTable.setStashCapacity(2);
+        for(int i = 0; i < 3; i++)
+        {
+            withoutStash.put(i * 77, i);
+            hashTable.put(i * 77, i);
+        }
+        System.out.println("Without stash Size/Capacity: " + withoutStash.size() + "/" + withoutStash.getCapacity());
+        System.out.println("With stash Size/Capacity: " + hashTable.size() + "/" + hashTable.getCapacity());
+        System.out.println("Stash size: " + hashTable.getStashSize());
+        System.out.println("equal sets (order does not matter): " + equivalentSets(toStrings(hashTable.keys()), new String[]{"0", "77", "154"}));
+        for(int i = 0; i < 3; i++)
+        {
+            System.out.println("get " + i * 77 + ": " + hashTable.get(i * 77));
+        }
+
+        hashTable.put(154, 1540);
+        hashTable.put(77, 770);
+        System.out.println("get 77: " + hashTable.get(77) + ", get 154: " + hashTable.get(154));
+
+        System.out.println(info + "depois de apagar uma chave, a chave do stash volta para as tabelas");
+        hashTable.delete(0);
+        System.out.println("Stash size: " + hashTable.getStashSize());
+        System.out.println("Size/Capacity: " + hashTable.size() + "/" + hashTable.getCapacity());
+        System.out.println("get 77: " + hashTable.get(77) + ", get 154: " + hashTable.get(154) + ", get 0: " + hashTable.get(0));
+    }
+
+    public static void test22()
+    {
+        System.out.println(info + "testando chaves com o mesmo hashcode com funções de hash com semente");
+        String[] sameHashCode = {"Aa", "BB", A1, A2, A3, A4, A5, A6, A7, A8, A9, A10, A11};
+        ForgettingCuckooHashTable<String,Integer> murmur = new ForgettingCuckooHashTable<String,Integer>();
+        murmur.setHashStrategy(new Murmur3HashStrategy());
+        ForgettingCuckooHashTable<String,Integer> tabulation = new ForgettingCuckooHashTable<String,Integer>();
+        tabulation.put("Aa", -1);
+        //a tabela é reconstruída com as novas funções
+        tabulation.setHashStrategy(new TabulationHashStrategy());
+        System.out.println("get \"Aa\" after changing the strategy: " + tabulation.get("Aa"));
+
+        for(int i = 0; i < sameHashCode.length; i++)
+        {
+            murmur.put(sameHashCode[i], i);
+            tabulation.put(sameHashCode[i], i);
+        }
+
+        boolean allFound = murmur.size() == sameHashCode.length && tabulation.size() == sameHashCode.length;
+        for(int i = 0; i < sameHashCode.length; i++)
+        {
+            allFound &= murmur.get(sameHashCode[i]) == i && tabulation.get(sameHashCode[i]) == i;
+        }
+        System.out.println("all keys found: " + allFound);
+        System.out.println("equal sets (order does not matter): " + equivalentSets(murmur.keys(), sameHashCode));
+
+        System.out.println(info + "uma inserção falhada muda a semente antes de aumentar a tabela");
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(3);
+        hashTable.setHashStrategy(new Murmur3HashStrategy());
+        HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+        for(int i = 0; i < 5000; i++)
+        {
+            int key = pseudoRandom.nextInt(100000);
+            hashTable.put(key, i);
+            expected.put(key, i);
+        }
+        boolean equal = hashTable.size() == expected.size();
+        for(Map.Entry<Integer,Integer> entry : expected.entrySet())
+        {
+            equal &= entry.getValue().equals(hashTable.get(entry.getKey()));
+        }
+        System.out.println("same contents as HashMap: " + equal);
+    }
+
+    public static void test23()
+    {
+        System.out.println(info + "Testando tabelas com tamanhos potência de 2");
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(0, 1, 0.5f, true);
+        ForgettingCuckooHashTable<Integer,Integer> bucketTable = new ForgettingCuckooHashTable<Integer,Integer>(0, 4, 0.9f, true);
+        HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+        for(int i = 0; i < 20000; i++)
+        {
+            int key = pseudoRandom.nextInt(10000);
+            if(pseudoRandom.nextInt(4) == 0)
+            {
+                hashTable.delete(key);
+                bucketTable.delete(key);
+                expected.remove(key);
+            }
+            else
+            {
+                hashTable.put(key, i);
+                bucketTable.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        boolean equal = hashTable.size() == expected.size() && bucketTable.size() == expected.size();
+        for(int key = 0; key < 10000; key++)
+        {
+            equal &= Objects.equals(hashTable.get(key), expected.get(key)) && Objects.equals(bucketTable.get(key), expected.get(key));
+        }
+        System.out.println("same contents as HashMap: " + equal);
+        System.out.println("Capacity is a power of two: " + (Integer.bitCount(hashTable.getCapacity() / 2) == 1) + ", " + (Integer.bitCount(bucketTable.getCapacity() / 8) == 1));
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+    }
+
+    public static void test24()
+    {
+        System.out.println(info + "Testando o esquecimento com um relógio manual e uma janela de 1 segundo");
+        ManualTimeSource clock = new ManualTimeSource(1000000);
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(4, clock, 1000);
+        System.out.println("forgetting window: " + hashTable.getForgettingWindowMillis() + "ms");
+        for(int i = 0; i < 100; i++)
+        {
+            hashTable.put(i, i);
+        }
+        clock.advance(600);
+        for(int i = 0; i < 8; i++)
+        {
+            hashTable.get(i);
+        }
+        clock.advance(600);
+        int inserted = 100;
+        for(int i = 1; i < 100; i++)
+        {
+            hashTable.put(-i, i);
+            inserted++;
+        }
+        boolean recentKeysKept = true;
+        for(int i = 0; i < 8; i++)
+        {
+            recentKeysKept &= hashTable.get(i) != null;
+        }
+        System.out.println("recently read keys kept: " + recentKeysKept);
+        System.out.println("old keys forgotten: " + (hashTable.size() < inserted));
+
+        System.out.println(info + "sem avançar o relógio nenhuma chave é esquecida");
+        hashTable = new ForgettingCuckooHashTable<Integer,Integer>(0, new ManualTimeSource(), 1000);
+        for(int i = 0; i < 5000; i++)
+        {
+            hashTable.put(i, i);
+        }
+        System.out.println("Size: " + hashTable.size());
+
+        try(CachedTimeSource cached = new CachedTimeSource(5))
+        {
+            System.out.println("cached clock close to the system clock: " + (Math.abs(cached.currentTimeMillis() - System.currentTimeMillis()) < 1000));
+        }
+    }
+
+    public static void test25()
+    {
+        System.out.println(info + "Testando a expiração proativa: as chaves esquecidas são apagadas sem colisões");
+        ManualTimeSource clock = new ManualTimeSource(5000000);
+        ForgettingCuckooHashTable<Integer,Integer> hashTable =
+                new ForgettingCuckooHashTable<Integer,Integer>(0, 4, 0.9f, false, clock, 10000);
+        hashTable.setExpiryWheel(true);
+        for(int i = 0; i < 1000; i++)
+        {
+            hashTable.put(i, i);
+        }
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+        clock.advance(6000);
+        for(int i = 0; i < 10; i++)
+        {
+            hashTable.get(i);
+        }
+        clock.advance(6000);
+        hashTable.get(-1);
+        System.out.println("Size after the window (only the keys read are kept): " + hashTable.size());
+        System.out.println("expired keys counted as forgotten, not deleted: " + (hashTable.getStats().getForgotten() >= 990 && hashTable.getStats().getDeletes() == 0));
+        System.out.println("get 5: " + hashTable.get(5) + ", get 500: " + hashTable.get(500));
+        clock.advance(12000);
+        hashTable.get(-1);
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+
+        System.out.println(info + "chaves com tempo de vida próprio");
+        hashTable.put(1, 1, Duration.ofSeconds(3));
+        hashTable.put(2, 2, Duration.ofMinutes(30));
+        hashTable.put(3, 3, Duration.ofSeconds(3));
+        hashTable.put(3, 30);
+        hashTable.put(4, 4);
+        clock.advance(5000);
+        System.out.println("get 1: " + hashTable.get(1) + ", get 2: " + hashTable.get(2) + ", get 3: " + hashTable.get(3) + ", get 4: " + hashTable.get(4));
+        for(int i = 0; i < 210; i++)
+        {
+            clock.advance(9000);
+            hashTable.get(2);
+        }
+        System.out.println("get 2 after the ttl, even if always used: " + hashTable.get(2));
+        System.out.println("Size: " + hashTable.size());
+    }
+
+    public static void test26()
+    {
+        System.out.println(info + "Testando o registo dos acessos em buffer, com e sem amostragem");
+        int[] sampleRates = {0, 1, 4};
+        for(int sampleRate : sampleRates)
+        {
+            ManualTimeSource clock = new ManualTimeSource(1000000);
+            ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(4, clock, 10000);
+            hashTable.setBufferedAccessRecording(sampleRate);
+            for(int i = 0; i < 100; i++)
+            {
+                hashTable.put(i, i);
+            }
+            clock.advance(6000);
+            //cada uma das chaves 0 a 9 é lida várias vezes, para que a amostragem também a registe
+            for(int j = 0; j < 8; j++)
+            {
+                for(int i = 0; i < 10; i++)
+                {
+                    hashTable.get(i);
+                }
+            }
+            clock.advance(6000);
+            for(int i = 1; i < 100; i++)
+            {
+                hashTable.put(-i, i);
+            }
+            int recentKeysKept = 0;
+            for(int i = 0; i < 10; i++)
+            {
+                if(hashTable.get(i) != null)
+                    recentKeysKept++;
+            }
+            int oldKeysKept = 0;
+            for(int i = 10; i < 100; i++)
+            {
+                if(hashTable.get(i) != null)
+                    oldKeysKept++;
+            }
+            System.out.println("sample rate " + sampleRate + ": recently read keys kept: " + recentKeysKept + "/10, some old keys forgotten: " + (oldKeysKept < 90));
+        }
+
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>();
+        hashTable.setBufferedAccessRecording(1);
+        HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+        boolean equal = true;
+        for(int i = 0; i < 20000; i++)
+        {
+            int key = pseudoRandom.nextInt(3000);
+            int op = pseudoRandom.nextInt(4);
+            if(op == 0)
+            {
+                hashTable.delete(key);
+                expected.remove(key);
+            }
+            else if(op == 1)
+            {
+                equal &= Objects.equals(hashTable.get(key), expected.get(key));
+            }
+            else
+            {
+                hashTable.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        System.out.println("same contents as HashMap: " + (equal && hashTable.size() == expected.size()));
+    }
+
+    public static void test27()
+    {
+        System.out.println(info + "Testando o tamanho máximo com admissão TinyLFU");
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>();
+        hashTable.setMaximumSize(200);
+        boolean bounded = true;
+        //as chaves 0 a 99 são lidas muitas vezes, entre uma sequência de chaves que só aparecem uma vez
+        for(int i = 0; i < 20000; i++)
+        {
+            int hot = i % 100;
+            if(hashTable.get(hot) == null)
+                hashTable.put(hot, hot);
+            hashTable.put(1000 + i, i);
+            bounded &= hashTable.size() <= 200;
+        }
+        int hotKeysKept = 0;
+        for(int i = 0; i < 100; i++)
+        {
+            if(hashTable.containsKey(i))
+                hotKeysKept++;
+        }
+        System.out.println("size never above maximum: " + bounded + ", hot keys kept: " + (hotKeysKept >= 95));
+        System.out.println("removed keys counted as evictions, not deletes: " + (hashTable.getStats().getEvictions() >= 19800 && hashTable.getStats().getDeletes() == 0));
+
+        hashTable.setMaximumSize(50);
+        System.out.println("size after lowering the maximum: " + hashTable.size());
+        hashTable.setMaximumSize(0);
+        for(int i = 0; i < 300; i++)
+        {
+            hashTable.put(-i, i);
+        }
+        System.out.println("size without maximum: " + hashTable.size());
+    }
+
+    public static void test28()
+    {
+        System.out.println(info + "Testando o peso máximo com um Weigher");
+        ManualTimeSource clock = new ManualTimeSource(1000000);
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(4, clock, 100000);
+        //o peso de cada chave é o seu valor
+        hashTable.setMaximumWeight(1200, (k, v) -> v);
+        //50 chaves leves (peso 1) e 20 pesadas (peso 50), que depois ficam sem uso; só as leves voltam a ser lidas
+        for(int i = 0; i < 50; i++)
+        {
+            hashTable.put(i, 1);
+        }
+        for(int i = 50; i < 70; i++)
+        {
+            hashTable.put(i, 50);
+        }
+        System.out.println("total weight: " + hashTable.getTotalWeight() + ", size: " + hashTable.size());
+        clock.advance(50000);
+        for(int i = 0; i < 50; i++)
+        {
+            hashTable.get(i);
+        }
+        clock.advance(1000);
+        boolean bounded = true;
+        for(int i = 100; i < 150; i++)
+        {
+            hashTable.put(i, 10);
+            bounded &= hashTable.getTotalWeight() <= 1200;
+        }
+        int lightKept = 0;
+        int heavyKept = 0;
+        long weight = 0;
+        for(Integer k : hashTable.keys())
+        {
+            if(k < 50)
+                lightKept++;
+            else if(k < 70)
+                heavyKept++;
+            weight += hashTable.get(k);
+        }
+        System.out.println("weight never above maximum: " + bounded + ", total weight matches the keys: " + (weight == hashTable.getTotalWeight()));
+        System.out.println("light keys kept: " + lightKept + "/50, heavy keys kept: " + (heavyKept < 20 ? "fewer than 20" : "20"));
+
+        hashTable.put(1000, 5000);
+        System.out.println("entry heavier than the maximum kept: " + hashTable.containsKey(1000) + ", total weight: " + (hashTable.getTotalWeight() <= 1200));
+        hashTable.setMaximumWeight(0, null);
+        System.out.println("total weight without weigher: " + (hashTable.getTotalWeight() == hashTable.size()));
+    }
+
+    public static void test29()
+    {
+        System.out.println(info + "Testando putIfAbsent, replace, compute, computeIfAbsent, merge e getOrDefault");
+        ForgettingCuckooHashTable<String,Integer> hashTable = new ForgettingCuckooHashTable<String,Integer>();
+        System.out.println("putIfAbsent(a, 1): " + hashTable.putIfAbsent("a", 1) + ", putIfAbsent(a, 2): " + hashTable.putIfAbsent("a", 2) + ", get(a): " + hashTable.get("a"));
+        System.out.println("replace(b, 5): " + hashTable.replace("b", 5) + ", replace(a, 5): " + hashTable.replace("a", 5) + ", get(a): " + hashTable.get("a"));
+        System.out.println("computeIfAbsent(c): " + hashTable.computeIfAbsent("c", k -> k.length()) + ", computeIfAbsent(a): " + hashTable.computeIfAbsent("a", k -> 100));
+        System.out.println("compute(a): " + hashTable.compute("a", (k, v) -> v * 2) + ", compute(c) to null: " + hashTable.compute("c", (k, v) -> null) + ", containsKey(c): " + hashTable.containsKey("c"));
+        System.out.println("getOrDefault(c, -1): " + hashTable.getOrDefault("c", -1) + ", getOrDefault(a, -1): " + hashTable.getOrDefault("a", -1));
+        System.out.println("puts counted: " + hashTable.getStats().getPuts());
+
+        //a função do compute não pode alterar a tabela
+        String result;
+        try
+        {
+            hashTable.compute("w", (k, v) -> {
+                hashTable.put("v", 1);
+                return 1;
+            });
+            result = "no exception";
+        }
+        catch(ConcurrentModificationException e)
+        {
+            result = "ConcurrentModificationException";
+        }
+        System.out.println("compute changing the table: " + result + ", containsKey(w): " + hashTable.containsKey("w"));
+        hashTable.delete("v");
+
+        //contadores: cada palavra é contada com merge
+        String[] words = {"x", "y", "x", "z", "x", "y"};
+        for(String w : words)
+        {
+            hashTable.merge(w, 1, Integer::sum);
+        }
+        System.out.println("counts: x=" + hashTable.get("x") + " y=" + hashTable.get("y") + " z=" + hashTable.get("z") + ", size: " + hashTable.size());
+
+        ForgettingCuckooHashTable<Integer,Integer> counters = new ForgettingCuckooHashTable<Integer,Integer>(2, 4, 0.9f);
+        HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+        for(int i = 0; i < 20000; i++)
+        {
+            int key = pseudoRandom.nextInt(2000);
+            counters.merge(key, 1, Integer::sum);
+            expected.merge(key, 1, Integer::sum);
+        }
+        boolean equal = counters.size() == expected.size();
+        for(Integer key : expected.keySet())
+        {
+            equal &= expected.get(key).equals(counters.get(key));
+        }
+        System.out.println("merge counters equal to HashMap: " + equal);
+    }
+
+    public static void test30()
+    {
+        System.out.println(info + "Testando o modo estrito de procura (duas posições por chave)");
+        List<ForgettingCuckooHashTable<Integer,Integer>> tables = List.of(
+                new ForgettingCuckooHashTable<Integer,Integer>(), new ForgettingCuckooHashTable<Integer,Integer>(2, 1, 0.5f, true));
+        for(ForgettingCuckooHashTable<Integer,Integer> hashTable : tables)
+        {
+            hashTable.setStrictLookup(true);
+            hashTable.setStashCapacity(4);
+            HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+            boolean equal = true;
+            for(int i = 0; i < 20000; i++)
+            {
+                int key = pseudoRandom.nextInt(3000);
+                int op = pseudoRandom.nextInt(4);
+                if(op == 0)
+                {
+                    hashTable.delete(key);
+                    expected.remove(key);
+                }
+                else if(op == 1)
+                {
+                    equal &= Objects.equals(hashTable.get(key), expected.get(key));
+                    equal &= hashTable.containsKey(key) == expected.containsKey(key);
+                }
+                else
+                {
+                    hashTable.put(key, i);
+                    expected.put(key, i);
+                }
+            }
+            System.out.println("strict lookup: " + hashTable.isStrictLookup() + ", same contents as HashMap: " + (equal && hashTable.size() == expected.size()));
+        }
+    }
+
+    public static void test31()
+    {
+        System.out.println(info + "Testando as etiquetas dos buckets, incluindo chaves com o mesmo hashcode");
+        int[] bucketSizes = {2, 4, 8};
+        for(int bucketSize : bucketSizes)
+        {
+            ForgettingCuckooHashTable<String,Integer> hashTable = new ForgettingCuckooHashTable<String,Integer>(0, bucketSize, 0.9f);
+            //"Aa" e "BB" têm o mesmo hashcode, e por isso a mesma etiqueta
+            hashTable.put("Aa", 1);
+            hashTable.put("BB", 2);
+            hashTable.delete("Aa");
+            HashMap<String,Integer> expected = new HashMap<String,Integer>();
+            expected.put("BB", 2);
+            boolean equal = true;
+            for(int i = 0; i < 20000; i++)
+            {
+                String key = "k" + pseudoRandom.nextInt(3000);
+                int op = pseudoRandom.nextInt(4);
+                if(op == 0)
+                {
+                    hashTable.delete(key);
+                    expected.remove(key);
+                }
+                else if(op == 1)
+                {
+                    equal &= Objects.equals(hashTable.get(key), expected.get(key));
+                }
+                else
+                {
+                    hashTable.put(key, i);
+                    expected.put(key, i);
+                }
+            }
+            System.out.println("bucket size " + bucketSize + ": get(Aa): " + hashTable.get("Aa") + ", get(BB): " + hashTable.get("BB")
+                    + ", same contents as HashMap: " + (equal && hashTable.size() == expected.size()));
+        }
+    }
+
+    public static void test32()
+    {
+        System.out.println(info + "Testando as estatísticas das trocas: média e variância acumuladas e percentis");
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>();
+        hashTable.setSwapLogging(true);
+        for(int i = 0; i < 100000; i++)
+        {
+            hashTable.put(pseudoRandom.nextInt(), i);
+        }
+        System.out.println("running mean below 2: " + (hashTable.getSwapRunningMean() < 2.0) + ", running variance positive: " + (hashTable.getSwapRunningVariance() > 0.0));
+        System.out.println("p50 <= p99 <= max: " + (hashTable.getSwapPercentile(0.5) <= hashTable.getSwapPercentile(0.99)
+                && hashTable.getSwapPercentile(0.99) <= hashTable.getMaxSwaps()) + ", p100 == max: " + (hashTable.getSwapPercentile(1.0) == hashTable.getMaxSwaps()));
+        System.out.println("p50: " + hashTable.getSwapPercentile(0.5));
+    }
+
+    public static void test33()
+    {
+        System.out.println(info + "Testando as estatísticas da tabela e o MBean");
+        ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>();
+        for(int i = 0; i < 1000; i++)
+        {
+            hashTable.put(i, i);
+        }
+        for(int i = 0; i < 500; i++)
+        {
+            hashTable.put(i, -i);
+        }
+        for(int i = 0; i < 2000; i++)
+        {
+            hashTable.get(i);
+        }
+        for(int i = 0; i < 900; i++)
+        {
+            hashTable.delete(i);
+        }
+        TableStats stats = hashTable.getStats();
+        System.out.println("gets: " + stats.getGets() + ", hits: " + stats.getHits() + ", misses: " + stats.getMisses() + ", hit rate: " + stats.getHitRate());
+        System.out.println("puts: " + stats.getPuts() + ", updates: " + stats.getUpdates() + ", deletes: " + stats.getDeletes());
+        System.out.println("resized up and down: " + (stats.getResizesUp() > 0 && stats.getResizesDown() > 0) + ", occupancy: "
+                + (stats.getSizeT0() + stats.getSizeT1() + stats.getStashSize()) + "/" + stats.getCapacity());
+
+        hashTable.advanceTime(25);
+        for(int i = 0; i < 3000; i++)
+        {
+            hashTable.put(-i - 1, i);
+        }
+        System.out.println("keys forgotten on collision: " + (hashTable.getStats().getForgotten() > 0));
+
+        try
+        {
+            hashTable.registerMBean("aed.tables:type=ForgettingCuckooHashTable,name=test33");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("aed.tables:type=ForgettingCuckooHashTable,name=test33");
+            System.out.println("MBean gets: " + server.getAttribute(name, "Gets"));
+            server.invoke(name, "resetStats", null, null);
+            System.out.println("gets after reset: " + hashTable.getStats().getGets());
+            hashTable.unregisterMBean();
+            System.out.println("MBean unregistered: " + !server.isRegistered(name));
+        }
+        catch(JMException e)
+        {
+            System.out.println("MBean error: " + e);
+        }
+    }
+
+    public static void test34()
+    {
+        System.out.println(info + "Testando os eventos JFR: resize, cadeias longas de trocas e chaves esquecidas");
+        try(Recording recording = new Recording())
+        {
+            recording.enable("aed.tables.CuckooResize");
+            recording.enable("aed.tables.CuckooLongKickChain");
+            recording.enable("aed.tables.CuckooForget");
+            recording.start();
+
+            ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>();
+            hashTable.setLongKickChainThreshold(4);
+            for(int i = 0; i < 5000; i++)
+            {
+                hashTable.put(pseudoRandom.nextInt(), i);
+            }
+            hashTable.advanceTime(25);
+            for(int i = 0; i < 5000; i++)
+            {
+                hashTable.put(-i - 1, i);
+            }
+            recording.stop();
+
+            Path file = Files.createTempFile("cuckoo", ".jfr");
+            recording.dump(file);
+            int resizes = 0;
+            int longChains = 0;
+            int forgotten = 0;
+            for(RecordedEvent event : RecordingFile.readAllEvents(file))
+            {
+                String name = event.getEventType().getName();
+                if(name.equals("aed.tables.CuckooResize"))
+                    resizes++;
+                else if(name.equals("aed.tables.CuckooLongKickChain"))
+                    longChains++;
+                else if(name.equals("aed.tables.CuckooForget"))
+                    forgotten += event.getInt("forgottenOnCollision");
+            }
+            Files.delete(file);
+            System.out.println("resize events: " + (resizes > 0) + ", long kick chain events: " + (longChains > 0)
+                    + ", forgotten keys reported: " + (forgotten > 0 && forgotten <= hashTable.getStats().getForgotten()));
+        }
+        catch(IOException e)
+        {
+            System.out.println("JFR error: " + e);
+        }
+    }
+
+    public static void test35()
+    {
+        System.out.println(info + "Testando o resize incremental com stash: as chaves inseridas quando a migração começa não se perdem");
+        boolean[] bfsModes = {false, true};
+        for(boolean bfs : bfsModes)
+        {
+            //a perda só acontecia quando o stash tinha chaves no momento em que a migração começava,
+            //por isso são testadas várias sequências de operações
+            boolean equal = true;
+            for(int seed = 0; seed < 100; seed++)
+            {
+                ForgettingCuckooHashTable<Integer,Integer> hashTable = new ForgettingCuckooHashTable<Integer,Integer>(0, 1, 0.5f, false);
+                hashTable.setIncrementalResize(true);
+                hashTable.setStashCapacity(4);
+                hashTable.setHashStrategy(new TabulationHashStrategy());
+                hashTable.setBfsInsertion(bfs);
+                equal &= sameContentsAsHashMap(hashTable, new Random(seed), 5000, 3000);
+            }
+            System.out.println("bfs insertion: " + bfs + ", same contents as HashMap: " + equal);
+        }
+    }
+
+    public static void test36()
+    {
+        System.out.println(info + "Testando a tabela sem esquecimento contra um HashMap, com cada configuração e cada família de funções de hash");
+        List<HashStrategy<Object>> strategies = Arrays.asList(null, new Murmur3HashStrategy(), new TabulationHashStrategy());
+        String[] configurations = {"original", "stash", "incremental resize with stash", "bfs insertion with incremental resize and stash",
+                "buckets of 4 with incremental resize and stash", "strict lookup with incremental resize and stash"};
+        for(HashStrategy<Object> strategy : strategies)
+        {
+            String strategyName = (strategy == null) ? "default" : strategy.getClass().getSimpleName();
+            for(int c = 0; c < configurations.length; c++)
+            {
+                boolean equal = true;
+                for(int seed = 0; seed < 20; seed++)
+                {
+                    //sem chamadas a advanceTime a tabela nunca esquece chaves, e tem de se comportar como um HashMap
+                    ForgettingCuckooHashTable<Integer,Integer> hashTable = (c == 4)
+                            ? new ForgettingCuckooHashTable<Integer,Integer>(0, 4, 0.9f)
+                            : new ForgettingCuckooHashTable<Integer,Integer>(0, 1, 0.5f);
+                    if(c >= 1)
+                        hashTable.setStashCapacity(4);
+                    if(c >= 2)
+                        hashTable.setIncrementalResize(true);
+                    if(c == 3)
+                        hashTable.setBfsInsertion(true);
+                    if(c == 5)
+                        hashTable.setStrictLookup(true);
+                    if(strategy != null)
+                        hashTable.setHashStrategy(strategy);
+                    equal &= sameContentsAsHashMap(hashTable, new Random(seed), 5000, 3000);
+                }
+                System.out.println(strategyName + ", " + configurations[c] + ": same contents as HashMap: " + equal);
+            }
+        }
+    }
+
+    //aplica operações aleatórias à tabela e a um HashMap, e verifica se os dois têm sempre o mesmo conteúdo
+    private static boolean sameContentsAsHashMap(ForgettingCuckooHashTable<Integer,Integer> hashTable, Random random, int operations, int keyRange)
+    {
+        HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+        boolean equal = true;
+        for(int i = 0; i < operations; i++)
+        {
+            int key = random.nextInt(keyRange);
+            int op = random.nextInt(4);
+            if(op == 0)
+            {
+                hashTable.delete(key);
+                expected.remove(key);
+            }
+            else if(op == 1)
+            {
+                equal &= Objects.equals(hashTable.get(key), expected.get(key));
+                equal &= hashTable.containsKey(key) == expected.containsKey(key);
+            }
+            else
+            {
+                hashTable.put(key, i);
+                expected.put(key, i);
+            }
+            equal &= hashTable.size() == expected.size();
+        }
+        for(Map.Entry<Integer,Integer> entry : expected.entrySet())
+        {
+            equal &= Objects.equals(hashTable.get(entry.getKey()), entry.getValue());
+        }
+        return equal;
+    }
+
+    private static Iterable<String> toStrings(Iterable<Integer> keys)
+    {
+        List<String> strings = new ArrayList<String>();
+        for(Integer key : keys)
+        {
+            strings.add(String.valueOf(key));
+        }
+        return strings;
+    }
+
+
     private static void printArray(Comparable[] a, int n)
     {
         for(int i = 0; i < n; i++)
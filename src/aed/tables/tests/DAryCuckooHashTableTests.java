@@ -0,0 +1,91 @@
+package aed.tables.tests;
+
+import aed.tables.DAryForgettingCuckooHashTable;
+import aed.tables.ManualTimeSource;
+
+import java.util.*;
+
+public class DAryCuckooHashTableTests {
+
+    private static final String info = "TEST INFO: ";
+
+    //creates a random generator with a specific seed
+    private static final Random pseudoRandom = new Random(5789);
+
+    public static List<Runnable> getAllTests()
+    {
+        ArrayList<Runnable> tests = new ArrayList<Runnable>();
+        tests.add(DAryCuckooHashTableTests::test1);
+        tests.add(DAryCuckooHashTableTests::test2);
+
+        return tests;
+    }
+
+    public static void test1()
+    {
+        System.out.println(info + "Comparando a tabela com d tabelas com um HashMap, com passeio aleatório e com BFS");
+        for(int d = 2; d <= 4; d++)
+        {
+            for(int bfs = 0; bfs < 2; bfs++)
+            {
+                DAryForgettingCuckooHashTable<Integer,Integer> hashTable = new DAryForgettingCuckooHashTable<Integer,Integer>(d);
+                hashTable.setBfsInsertion(bfs == 1);
+                HashMap<Integer,Integer> expected = new HashMap<Integer,Integer>();
+                float maxLoadFactor = 0;
+                for(int i = 0; i < 20000; i++)
+                {
+                    int key = pseudoRandom.nextInt(5000);
+                    if(pseudoRandom.nextInt(4) == 0)
+                    {
+                        hashTable.delete(key);
+                        expected.remove(key);
+                    }
+                    else
+                    {
+                        hashTable.put(key, i);
+                        expected.put(key, i);
+                    }
+                    maxLoadFactor = Math.max(maxLoadFactor, hashTable.getLoadFactor());
+                }
+
+                boolean equal = hashTable.size() == expected.size();
+                for(int key = 0; key < 5000; key++)
+                {
+                    equal &= Objects.equals(hashTable.get(key), expected.get(key));
+                }
+                System.out.println("d = " + d + (bfs == 1 ? ", BFS" : ", random walk") + ": same contents as HashMap: " + equal
+                        + ", load factor reached " + hashTable.getMaxLoadFactor() + ": " + (maxLoadFactor >= hashTable.getMaxLoadFactor() - 0.05f));
+            }
+        }
+    }
+
+    public static void test2()
+    {
+        System.out.println(info + "Testando o esquecimento: só as chaves não usadas durante a janela são esquecidas");
+        ManualTimeSource clock = new ManualTimeSource(1000000);
+        DAryForgettingCuckooHashTable<Integer,Integer> hashTable = new DAryForgettingCuckooHashTable<Integer,Integer>(3, 6, clock, 7000);
+        for(int i = 0; i < 1000; i++)
+        {
+            hashTable.put(i, i);
+        }
+        clock.advance(5000);
+        for(int i = 0; i < 100; i++)
+        {
+            hashTable.get(i);
+        }
+        clock.advance(5000);
+        int inserted = 1000;
+        for(int i = 1; i < 1000; i++)
+        {
+            hashTable.put(-i, i);
+            inserted++;
+        }
+        boolean recentKeysKept = true;
+        for(int i = 0; i < 100; i++)
+        {
+            recentKeysKept &= hashTable.get(i) != null;
+        }
+        System.out.println("recently read keys kept: " + recentKeysKept);
+        System.out.println("old keys forgotten: " + (hashTable.size() < inserted));
+    }
+}
@@ -0,0 +1,90 @@
+package aed.tables.tests;
+
+import aed.tables.OffHeapForgettingCuckooHashTable;
+import aed.tables.OffHeapSerializer;
+
+import java.util.*;
+
+public class OffHeapCuckooHashTableTests {
+
+    private static final String info = "TEST INFO: ";
+
+    //creates a random generator with a specific seed
+    private static final Random pseudoRandom = new Random(5789);
+
+    public static List<Runnable> getAllTests()
+    {
+        ArrayList<Runnable> tests = new ArrayList<Runnable>();
+        tests.add(OffHeapCuckooHashTableTests::test1);
+        tests.add(OffHeapCuckooHashTableTests::test2);
+
+        return tests;
+    }
+
+    public static void test1()
+    {
+        System.out.println(info + "Testes simples com uma tabela fora do heap, com resize para cima e para baixo");
+        try(OffHeapForgettingCuckooHashTable<String,Long> hashTable =
+                    new OffHeapForgettingCuckooHashTable<String,Long>(OffHeapSerializer.fixedWidthString(12), OffHeapSerializer.LONG))
+        {
+            for(long i = 0; i < 1500; i++)
+            {
+                hashTable.put("key" + i, i);
+            }
+            System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+            System.out.println("get key0: " + hashTable.get("key0"));
+            System.out.println("get key1499: " + hashTable.get("key1499"));
+            System.out.println("get abc: " + hashTable.get("abc"));
+            hashTable.put("key0", 42L);
+            System.out.println("get key0 after update: " + hashTable.get("key0"));
+
+            for(long i = 0; i < 1400; i++)
+            {
+                hashTable.delete("key" + i);
+            }
+            System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+            System.out.println("Contains key \"key0\": " + hashTable.containsKey("key0"));
+            System.out.println("get key1450: " + hashTable.get("key1450"));
+        }
+    }
+
+    public static void test2()
+    {
+        System.out.println(info + "Comparando a tabela fora do heap com um HashMap, e testando o close");
+        OffHeapForgettingCuckooHashTable<Integer,Double> hashTable =
+                new OffHeapForgettingCuckooHashTable<Integer,Double>(OffHeapSerializer.INTEGER, OffHeapSerializer.DOUBLE);
+        HashMap<Integer,Double> expected = new HashMap<Integer,Double>();
+
+        for(int i = 0; i < 20000; i++)
+        {
+            int key = pseudoRandom.nextInt(5000);
+            if(pseudoRandom.nextInt(4) == 0)
+            {
+                hashTable.delete(key);
+                expected.remove(key);
+            }
+            else
+            {
+                hashTable.put(key, i / 2.0);
+                expected.put(key, i / 2.0);
+            }
+        }
+
+        boolean equal = hashTable.size() == expected.size();
+        for(int key = 0; key < 5000; key++)
+        {
+            equal &= Objects.equals(hashTable.get(key), expected.get(key));
+        }
+        System.out.println("same contents as HashMap: " + equal);
+
+        hashTable.close();
+        try
+        {
+            hashTable.get(1);
+        }
+        catch(IllegalStateException e)
+        {
+            System.out.println("IllegalStateException thrown after close: true");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package aed.tables.tests;
+
+import aed.tables.IntIntForgettingCuckooHashTable;
+import aed.tables.LongLongForgettingCuckooHashTable;
+import aed.tables.LongObjectForgettingCuckooHashTable;
+
+import java.util.*;
+
+public class PrimitiveCuckooHashTableTests {
+
+    private static final String info = "TEST INFO: ";
+
+    //creates a random generator with a specific seed
+    private static final Random pseudoRandom = new Random(5789);
+
+    public static List<Runnable> getAllTests()
+    {
+        ArrayList<Runnable> tests = new ArrayList<Runnable>();
+        tests.add(PrimitiveCuckooHashTableTests::test1);
+        tests.add(PrimitiveCuckooHashTableTests::test2);
+        tests.add(PrimitiveCuckooHashTableTests::test3);
+        tests.add(PrimitiveCuckooHashTableTests::test4);
+
+        return tests;
+    }
+
+    public static void test1()
+    {
+        System.out.println(info + "Testes simples com chaves e valores long, com resize para cima e para baixo");
+        LongLongForgettingCuckooHashTable hashTable = new LongLongForgettingCuckooHashTable(0, -1L);
+
+        for(long i = 0; i < 1500; i++)
+        {
+            hashTable.put(i * 1000003L, i);
+        }
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+        System.out.println("get 0: " + hashTable.get(0));
+        System.out.println("get " + 1499 * 1000003L + ": " + hashTable.get(1499 * 1000003L));
+        System.out.println("get 7 (missing): " + hashTable.get(7));
+        hashTable.put(0, 42);
+        System.out.println("get 0 after update: " + hashTable.get(0));
+
+        for(long i = 0; i < 1400; i++)
+        {
+            hashTable.delete(i * 1000003L);
+        }
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+        System.out.println("Contains key 0: " + hashTable.containsKey(0));
+        System.out.println("get " + 1450 * 1000003L + ": " + hashTable.get(1450 * 1000003L));
+        System.out.println("keys length: " + hashTable.keys().length);
+    }
+
+    public static void test2()
+    {
+        System.out.println(info + "Testando funcionalidade de esquecimento com chaves e valores int");
+        IntIntForgettingCuckooHashTable hashTable = new IntIntForgettingCuckooHashTable(0);
+        for(int i = 1; i < 8; i++)
+        {
+            hashTable.put(i,i);
+        }
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+        hashTable.advanceTime(25);
+        System.out.println(info + "Lazy forgetting, keys should not be immediately deleted");
+        System.out.println("get 1: " + hashTable.get(1));
+        for(int i = 1; i < 8; i++)
+        {
+            hashTable.put(-i,i);
+        }
+        System.out.println("Size/Capacity(LoadFactor): " + hashTable.size() + "/" + hashTable.getCapacity() + "(" + String.format(Locale.US,"%.02f",hashTable.getLoadFactor())+")");
+        System.out.println("get 1: " + hashTable.get(1));
+        System.out.println("get -7: " + hashTable.get(-7));
+    }
+
+    public static void test3()
+    {
+        System.out.println(info + "Comparando a tabela com chaves long e valores genéricos com um HashMap");
+        LongObjectForgettingCuckooHashTable<String> hashTable = new LongObjectForgettingCuckooHashTable<String>();
+        HashMap<Long,String> expected = new HashMap<Long,String>();
+
+        for(int i = 0; i < 20000; i++)
+        {
+            long key = pseudoRandom.nextInt(5000);
+            if(pseudoRandom.nextInt(4) == 0)
+            {
+                hashTable.delete(key);
+                expected.remove(key);
+            }
+            else
+            {
+                hashTable.put(key, "v" + i);
+                expected.put(key, "v" + i);
+            }
+        }
+
+        boolean equal = hashTable.size() == expected.size();
+        for(long key = 0; key < 5000; key++)
+        {
+            equal &= Objects.equals(hashTable.get(key), expected.get(key));
+        }
+        System.out.println("same contents as HashMap: " + equal);
+    }
+
+    public static void test4()
+    {
+        System.out.println(info + "Chaves long diferentes com o mesmo Long.hashCode");
+        LongLongForgettingCuckooHashTable hashTable = new LongLongForgettingCuckooHashTable(0, -1L);
+
+        //i * 0x100000001L tem a mesma metade de cima e de baixo, pelo que Long.hashCode é sempre 0
+        for(long i = 0; i < 1000; i++)
+        {
+            hashTable.put(i * 0x100000001L, i);
+        }
+        System.out.println("Size: " + hashTable.size());
+        boolean allFound = true;
+        for(long i = 0; i < 1000; i++)
+        {
+            allFound &= hashTable.get(i * 0x100000001L) == i;
+        }
+        System.out.println("all keys found: " + allFound);
+        System.out.println("get 0x100000001: " + hashTable.get(0x100000001L));
+        System.out.println("get 0x200000002: " + hashTable.get(0x200000002L));
+    }
+}